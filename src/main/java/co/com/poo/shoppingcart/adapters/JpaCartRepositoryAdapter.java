@@ -9,6 +9,9 @@ import org.springframework.stereotype.Component;
 /**
  * Adaptador que implementa la interface del dominio (CartRepository)
  * usando el CartService que habla con JPA.
+ *
+ * Todo pasa por el CartStore del CartService; los métodos sin cliente
+ * trabajan sobre el carrito del cliente por defecto.
  */
 @Component
 public class JpaCartRepositoryAdapter implements CartRepository {
@@ -25,4 +28,14 @@ public class JpaCartRepositoryAdapter implements CartRepository {
     public Cart getCart() {
         return cartService.getCurrentCart();
     }
+
+    @Override
+    public void saveCart(String customerId, Cart cart) {
+        cartService.saveCart(customerId, cart);
+    }
+
+    @Override
+    public Cart getCart(String customerId) {
+        return cartService.getCurrentCart(customerId);
+    }
 }
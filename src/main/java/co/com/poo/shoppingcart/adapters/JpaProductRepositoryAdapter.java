@@ -1,5 +1,6 @@
 package co.com.poo.shoppingcart.adapters;
 
+import co.com.poo.shoppingcart.model.CatalogFilter;
 import co.com.poo.shoppingcart.model.Product;
 import co.com.poo.shoppingcart.service.ProductRepository;  // Interface del dominio
 import co.com.poo.shoppingcart.services.ProductService;    // Service JPA
@@ -29,4 +30,21 @@ public class JpaProductRepositoryAdapter implements ProductRepository {
     public Product getProductById(Integer id) {
         return productService.getProductById(id.longValue());
     }
+
+    @Override
+    public List<Product> getProductsByCategory(String category) {
+        return productService.getProductsByCategory(category);
+    }
+
+    @Override
+    public List<Product> getProductsByPriceRange(Long minPrice, Long maxPrice) {
+        return productService.getProductsByPriceRange(
+                minPrice == null ? Long.MIN_VALUE : minPrice,
+                maxPrice == null ? Long.MAX_VALUE : maxPrice);
+    }
+
+    @Override
+    public List<Product> filterProducts(CatalogFilter filter) {
+        return productService.filterProducts(filter);
+    }
 }
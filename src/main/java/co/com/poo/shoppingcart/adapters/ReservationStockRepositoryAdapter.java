@@ -0,0 +1,40 @@
+package co.com.poo.shoppingcart.adapters;
+
+import co.com.poo.shoppingcart.model.CartItem;
+import co.com.poo.shoppingcart.service.StockRepository;  // Interface del dominio
+import co.com.poo.shoppingcart.services.StockReservations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adaptador que implementa la interface del dominio (StockRepository)
+ * con las reservas de stock en memoria (StockReservations).
+ */
+@Component
+public class ReservationStockRepositoryAdapter implements StockRepository {
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @Override
+    public void commit(String customerId, List<CartItem> items) {
+        stockReservations.commit(customerId, quantities(items));
+    }
+
+    @Override
+    public void restore(List<CartItem> items) {
+        stockReservations.restore(quantities(items));
+    }
+
+    private static Map<Integer, Integer> quantities(List<CartItem> items) {
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+}
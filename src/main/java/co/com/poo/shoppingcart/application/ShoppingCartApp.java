@@ -2,21 +2,37 @@ package co.com.poo.shoppingcart.application;
 
 import co.com.poo.shoppingcart.service.CartRepository;
 import co.com.poo.shoppingcart.service.InMemoryCartManager;
+import co.com.poo.shoppingcart.service.MappedFileCartManager;
 import co.com.poo.shoppingcart.service.ProductRepository;
 import co.com.poo.shoppingcart.service.FileProductManager;
+import co.com.poo.shoppingcart.service.SnapshotProductManager;
 import co.com.poo.shoppingcart.usecase.ShoppingCartUseCase;
 import co.com.poo.shoppingcart.usecase.ProductCatalogUseCase;
 import co.com.poo.shoppingcart.usecase.OrderUseCase;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Order;
 import co.com.poo.shoppingcart.model.Product;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 public class ShoppingCartApp {
     public static void main(String[] args) {
         // Inicializar repositorios
-        CartRepository cartRepository = InMemoryCartManager.getInstance();
-        ProductRepository productRepository = FileProductManager.getInstance();
+        ProductRepository productRepository = productRepository();
+        // Con -Dcart.file=ruta los carritos se guardan en un archivo mapeado y sobreviven al reinicio
+        String cartFile = System.getProperty("cart.file");
+        CartRepository cartRepository;
+        if (cartFile == null) {
+            cartRepository = InMemoryCartManager.getInstance();
+        } else {
+            MappedFileCartManager cartManager = new MappedFileCartManager(
+                    Path.of(cartFile), Integer.getInteger("cart.capacity", 100_000), productRepository);
+            // Al salir (opción de menú o Ctrl+C) el archivo se baja a disco y se cierra
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> closeQuietly(cartManager)));
+            cartRepository = cartManager;
+        }
         
         // Inicializar casos de uso
         ShoppingCartUseCase shoppingCartUseCase = new ShoppingCartUseCase(cartRepository, productRepository);
@@ -27,6 +43,31 @@ public class ShoppingCartApp {
         startConsoleInterface(shoppingCartUseCase, productCatalogUseCase, orderUseCase);
     }
     
+    private static void closeQuietly(MappedFileCartManager cartManager) {
+        try {
+            cartManager.close();
+        } catch (IOException e) {
+            System.err.println("No se pudo cerrar el archivo de carritos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Con -Dproducts.snapshot=ruta el catálogo se sirve desde un snapshot binario
+     * (ver CatalogSnapshotWriter); si no, desde el archivo de texto
+     */
+    private static ProductRepository productRepository() {
+        String snapshot = System.getProperty("products.snapshot");
+        if (snapshot != null) {
+            try {
+                return new SnapshotProductManager(Path.of(snapshot));
+            } catch (IOException e) {
+                System.err.println("No se pudo abrir el snapshot " + snapshot + ": " + e.getMessage()
+                        + ". Se usa el catálogo de texto.");
+            }
+        }
+        return FileProductManager.getInstance();
+    }
+
     /**
      * Inicia la interfaz de consola para interactuar con el sistema de carrito de compras
      * @param shoppingCartUseCase Caso de uso para operaciones del carrito
@@ -76,7 +117,7 @@ public class ShoppingCartApp {
                     System.out.println("----------------------------------------");
                     productCatalogUseCase.getProductList().forEach(p -> 
                         System.out.println(p.getId() + " | " + p.getName() + " | " + 
-                                          p.getCategory() + " | $" + p.getPrice() + " | " + p.getStock())
+                                          p.getCategory() + " | $" + Money.format(p.getPrice()) + " | " + p.getStock())
                     );
                     break;
                     
@@ -129,11 +170,11 @@ public class ShoppingCartApp {
                         shoppingCartUseCase.viewCart().getItems().forEach(item -> 
                             System.out.println(item.getProduct().getName() + " | " + 
                                               item.getQuantity() + " | $" + 
-                                              item.getProduct().getPrice() + " | $" + 
-                                              item.getSubtotal())
+                                              Money.format(item.getProduct().getPrice()) + " | $" + 
+                                              Money.format(item.getSubtotal()))
                         );
                         System.out.println("------------------------------------------------");
-                        System.out.println("Total: $" + shoppingCartUseCase.viewCart().getTotalAmount());
+                        System.out.println("Total: $" + Money.format(shoppingCartUseCase.viewCart().getTotalAmount()));
                     }
                     break;
                     
@@ -226,14 +267,14 @@ public class ShoppingCartApp {
                             System.out.println(item.getProduct().getId() + " | " + 
                                              item.getProduct().getName() + " | " + 
                                              item.getQuantity() + " | $" + 
-                                             item.getProduct().getPrice() + " | $" + 
-                                             item.getSubtotal())
+                                             Money.format(item.getProduct().getPrice()) + " | $" + 
+                                             Money.format(item.getSubtotal()))
                         );
                         
                         System.out.println("----------------------------------------------------");
-                        System.out.println("Subtotal: $" + newOrder.getSubtotal());
-                        System.out.println("Descuento: $" + newOrder.getDiscount());
-                        System.out.println("Total Final: $" + newOrder.getFinalTotal());
+                        System.out.println("Subtotal: $" + Money.format(newOrder.getSubtotal()));
+                        System.out.println("Descuento: $" + Money.format(newOrder.getDiscount()));
+                        System.out.println("Total Final: $" + Money.format(newOrder.getFinalTotal()));
                         
                         // Vaciar el carrito después del cierre
                         orderUseCase.clearCartAfterOrder();
@@ -272,14 +313,14 @@ public class ShoppingCartApp {
                             order.getItems().forEach(item -> 
                                 System.out.println(item.getProduct().getName() + " | " + 
                                                  item.getQuantity() + " | $" + 
-                                                 item.getProduct().getPrice() + " | $" + 
-                                                 item.getSubtotal())
+                                                 Money.format(item.getProduct().getPrice()) + " | $" + 
+                                                 Money.format(item.getSubtotal()))
                             );
                             
                             System.out.println("--------------------------------------------");
-                            System.out.println("Subtotal: $" + order.getSubtotal());
-                            System.out.println("Descuento: $" + order.getDiscount());
-                            System.out.println("Total Final: $" + order.getFinalTotal());
+                            System.out.println("Subtotal: $" + Money.format(order.getSubtotal()));
+                            System.out.println("Descuento: $" + Money.format(order.getDiscount()));
+                            System.out.println("Total Final: $" + Money.format(order.getFinalTotal()));
                         } else {
                             System.out.println("Error: No se encontró la orden.");
                         }
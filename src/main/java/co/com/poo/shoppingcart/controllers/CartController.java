@@ -1,42 +1,90 @@
 package co.com.poo.shoppingcart.controllers;
 
 import co.com.poo.shoppingcart.dto.request.AddToCartRequestDTO;
+import co.com.poo.shoppingcart.dto.request.CartBatchRequestDTO;
 import co.com.poo.shoppingcart.dto.request.UpdateQuantityRequestDTO;
+import co.com.poo.shoppingcart.dto.response.CartBatchResponseDTO;
 import co.com.poo.shoppingcart.dto.response.CartItemResponseDTO;
+import co.com.poo.shoppingcart.dto.response.CartOperationResultDTO;
 import co.com.poo.shoppingcart.dto.response.CartResponseDTO;
+import co.com.poo.shoppingcart.exception.CartVersionMismatchException;
+import co.com.poo.shoppingcart.exception.InsufficientStockException;
 import co.com.poo.shoppingcart.exception.InvalidQuantityException;
 import co.com.poo.shoppingcart.exception.ProductNotFoundException;
 import co.com.poo.shoppingcart.model.Cart;
-import co.com.poo.shoppingcart.model.CartItem;
+import co.com.poo.shoppingcart.model.CartOperation;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.services.CartService;
+import co.com.poo.shoppingcart.services.CartViewCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Controller para manejar todas las operaciones del carrito de compras.
  * Expone endpoints REST para agregar, ver, actualizar y eliminar items del carrito.
+ *
+ * Todas las respuestas llevan el ETag del carrito. Las modificaciones aceptan
+ * If-Match: si el carrito cambió desde que el cliente lo leyó se responde 412.
  */
 @RestController
 @RequestMapping("/api/cart")
 public class CartController {
 
+    /**
+     * Header con el ID del cliente (o sesión) dueño del carrito
+     */
+    public static final String CUSTOMER_HEADER = "X-Customer-Id";
+
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private CartViewCache cartViewCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 1. Ver el carrito de compras actual
      * GET /api/cart
+     *
+     * Si el If-None-Match coincide con la versión actual se responde 304 sin cuerpo.
+     * Si no, se responde el JSON ya serializado de esa versión (si existe en caché).
      */
     @GetMapping
-    public ResponseEntity<CartResponseDTO> viewCart() {
-        Cart cart = cartService.getCurrentCart();
-        CartResponseDTO response = convertToCartDTO(cart);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> viewCart(
+            @RequestHeader(value = CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws JsonProcessingException {
+
+        long version = cartService.getCartVersion(customerId);
+        if (etagMatches(ifNoneMatch, version)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version)).build();
+        }
+
+        byte[] body = cartViewCache.get(customerId, version);
+        if (body == null) {
+            Cart cart = cartService.getCurrentCart(customerId);
+            version = cart.getVersion();
+            body = objectMapper.writeValueAsBytes(convertToCartDTO(cart));
+            cartViewCache.put(customerId, version, body);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag(version))
+                .body(body);
     }
 
     /**
@@ -45,6 +93,8 @@ public class CartController {
      */
     @PostMapping("/add")
     public ResponseEntity<CartResponseDTO> addProductToCart(
+            @RequestHeader(value = CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody AddToCartRequestDTO request) {
 
         // Validar cantidad
@@ -53,9 +103,11 @@ public class CartController {
         }
 
         try {
-            Cart cart = cartService.addProductToCart(request.getProductId(), request.getQuantity());
-            CartResponseDTO response = convertToCartDTO(cart);
-            return ResponseEntity.ok(response);
+            Cart cart = cartService.addProductToCart(customerId, request.getProductId(), request.getQuantity(),
+                    parseIfMatch(ifMatch));
+            return cartResponse(HttpStatus.OK, cart);
+        } catch (CartVersionMismatchException | InsufficientStockException e) {
+            throw e;
         } catch (RuntimeException e) {
             throw new ProductNotFoundException("No se pudo agregar el producto. Verifique el ID.");
         }
@@ -67,6 +119,8 @@ public class CartController {
      */
     @PutMapping("/update")
     public ResponseEntity<CartResponseDTO> updateQuantity(
+            @RequestHeader(value = CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdateQuantityRequestDTO request) {
 
         // Validar cantidad
@@ -74,20 +128,13 @@ public class CartController {
             throw new InvalidQuantityException("La cantidad debe ser mayor a 0");
         }
 
-        Cart cart = cartService.getCurrentCart();
-
-        // Buscar el item en el carrito
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getProduct().getId().longValue() == request.getProductId())
-                .findFirst()
-                .orElseThrow(() -> new ProductNotFoundException("Producto no encontrado en el carrito"));
-
-        // Actualizar cantidad
-        item.setQuantity(request.getQuantity());
-        cartService.saveCart(cart);
+        Cart cart = cartService.updateQuantity(customerId, request.getProductId(), request.getQuantity(),
+                parseIfMatch(ifMatch));
+        if (cart == null) {
+            throw new ProductNotFoundException("Producto no encontrado en el carrito");
+        }
 
-        CartResponseDTO response = convertToCartDTO(cart);
-        return ResponseEntity.ok(response);
+        return cartResponse(HttpStatus.OK, cart);
     }
 
     /**
@@ -95,23 +142,17 @@ public class CartController {
      * DELETE /api/cart/remove/{productId}
      */
     @DeleteMapping("/remove/{productId}")
-    public ResponseEntity<CartResponseDTO> removeItem(@PathVariable Long productId) {
-        Cart cart = cartService.getCurrentCart();
-
-        // Buscar y eliminar el item
-        boolean removed = cart.getItems().removeIf(
-                item -> item.getProduct().getId().longValue() == productId
-        );
+    public ResponseEntity<CartResponseDTO> removeItem(
+            @RequestHeader(value = CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @PathVariable Long productId) {
 
-        if (!removed) {
+        Cart cart = cartService.removeProduct(customerId, productId, parseIfMatch(ifMatch));
+        if (cart == null) {
             throw new ProductNotFoundException("Producto no encontrado en el carrito");
         }
 
-        cart.calculateTotal();
-        cartService.saveCart(cart);
-
-        CartResponseDTO response = convertToCartDTO(cart);
-        return ResponseEntity.ok(response);
+        return cartResponse(HttpStatus.OK, cart);
     }
 
     /**
@@ -119,9 +160,120 @@ public class CartController {
      * DELETE /api/cart/clear
      */
     @DeleteMapping("/clear")
-    public ResponseEntity<Void> clearCart() {
-        cartService.clearCart();
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Void> clearCart(
+            @RequestHeader(value = CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Cart cart = cartService.clearCart(customerId, parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().eTag(etag(cart)).build();
+    }
+
+    /**
+     * 6. Aplicar varias operaciones (agregar, actualizar, eliminar) en una sola petición
+     * POST /api/cart/batch
+     *
+     * Las operaciones se aplican en orden y el carrito se guarda una sola vez.
+     * Cada operación tiene su propio resultado; una inválida no detiene las demás.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<CartBatchResponseDTO> applyBatch(
+            @RequestHeader(value = CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody CartBatchRequestDTO request) {
+
+        List<CartOperation> operations = request.getOperations().stream()
+                .map(op -> new CartOperation(
+                        op.getType(),
+                        op.getProductId().intValue(),
+                        op.getQuantity() != null ? op.getQuantity() : 0))
+                .collect(Collectors.toList());
+
+        Cart cart = cartService.applyBatch(customerId, operations, parseIfMatch(ifMatch));
+
+        List<CartOperationResultDTO> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            CartOperation op = operations.get(i);
+            results.add(new CartOperationResultDTO(
+                    i,
+                    op.getType().name(),
+                    (long) op.getProductId(),
+                    op.isSuccess(),
+                    op.getErrorCode(),
+                    op.getMessage()
+            ));
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag(cart))
+                .body(new CartBatchResponseDTO(results, convertToCartDTO(cart)));
+    }
+
+    /**
+     * Si el If-Match no coincide con la versión actual se responde 412
+     * con el carrito vigente y su ETag, para que el cliente reintente.
+     */
+    @ExceptionHandler(CartVersionMismatchException.class)
+    public ResponseEntity<CartResponseDTO> handleVersionMismatch(CartVersionMismatchException ex) {
+        return cartResponse(HttpStatus.PRECONDITION_FAILED, ex.getCurrentCart());
+    }
+
+    // ============ ETag / If-Match ============
+
+    /**
+     * El ETag del carrito es su versión en hexadecimal
+     */
+    static String etag(Cart cart) {
+        return etag(cart.getVersion());
+    }
+
+    static String etag(long version) {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    /**
+     * Indica si alguno de los ETags del If-None-Match corresponde a la versión ("*" siempre coincide)
+     */
+    static boolean etagMatches(String ifNoneMatch, long version) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            if (tag.trim().equals("*")) {
+                return true;
+            }
+            Long parsed = parseIfMatch(tag);
+            if (parsed != null && parsed == version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lee la versión del header If-Match.
+     * @return null si no se envió o es "*"; -1 (nunca coincide) si el valor no es válido
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseUnsignedLong(value, 16);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private ResponseEntity<CartResponseDTO> cartResponse(HttpStatus status, Cart cart) {
+        return ResponseEntity.status(status)
+                .eTag(etag(cart))
+                .body(convertToCartDTO(cart));
     }
 
     // Metodo auxiliar para convertir el modelo Cart a CartResponseDTO
@@ -131,15 +283,15 @@ public class CartController {
                 .map(item -> new CartItemResponseDTO(
                         item.getProduct().getId().longValue(),
                         item.getProduct().getName(),
-                        item.getProduct().getPrice(),
+                        Money.toDecimal(item.getProduct().getPrice()),
                         item.getQuantity(),
-                        item.getSubtotal()
+                        Money.toDecimal(item.getSubtotal())
                 ))
                 .collect(Collectors.toList());
 
         return new CartResponseDTO(
                 items,
-                cart.getTotalAmount(),
+                Money.toDecimal(cart.getTotalAmount()),
                 cart.isEmpty()
         );
     }
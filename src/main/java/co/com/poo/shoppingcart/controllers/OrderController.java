@@ -4,6 +4,7 @@ import co.com.poo.shoppingcart.dto.response.OrderItemResponseDTO;
 import co.com.poo.shoppingcart.dto.response.OrderResponseDTO;
 import co.com.poo.shoppingcart.exception.EmptyCartException;
 import co.com.poo.shoppingcart.model.Cart;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Order;
 import co.com.poo.shoppingcart.services.CartService;
 import co.com.poo.shoppingcart.services.OrderService;
@@ -42,27 +43,30 @@ public class OrderController {
      * genera el resumen del pedido y vacía el carrito.
      */
     @PostMapping("/checkout")
-    public ResponseEntity<OrderResponseDTO> checkout() {
-        // Obtener el carrito actual
-        Cart cart = cartService.getCurrentCart();
-
-        // Validar que el carrito no esté vacío
-        if (cart.isEmpty()) {
-            throw new EmptyCartException();
-        }
-
-        // Crear la orden usando el UseCase (aplica lógica de descuento)
-        Order order = orderUseCase.createOrder();
+    public ResponseEntity<OrderResponseDTO> checkout(
+            @RequestHeader(value = CartController.CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId) {
+        // Crear la orden (aplica lógica de descuento y confirma el stock), guardar
+        // su resumen y vaciar el carrito en un solo paso, con el carrito bloqueado
+        Order order = cartService.checkout(customerId, cart -> {
+            if (cart.isEmpty()) {
+                throw new EmptyCartException();
+            }
+            Order created = orderUseCase.createOrder(customerId, cart);
+            try {
+                orderService.saveOrderSummary(customerId, created);
+            } catch (RuntimeException e) {
+                // Sin resumen no hay pedido: el stock vuelve y el carrito no se vacía
+                orderUseCase.cancelOrder(created);
+                throw e;
+            }
+            return created;
+        });
 
         if (order == null) {
             throw new EmptyCartException();
         }
 
-        // Guardar resumen en la base de datos
-        orderService.saveOrderSummary("Default Customer", order);
-
-        // Vaciar el carrito
-        orderUseCase.clearCartAfterOrder();
+        flushCartQuietly(customerId);
 
         // Convertir a DTO y retornar
         OrderResponseDTO response = convertToOrderDTO(order);
@@ -77,19 +81,32 @@ public class OrderController {
      * Vacía el carrito sin generar orden.
      */
     @DeleteMapping("/cancel")
-    public ResponseEntity<Void> cancelOrder() {
-        Cart cart = cartService.getCurrentCart();
+    public ResponseEntity<Void> cancelOrder(
+            @RequestHeader(value = CartController.CUSTOMER_HEADER, defaultValue = CartService.DEFAULT_CUSTOMER_ID) String customerId) {
+        Cart cart = cartService.getCurrentCart(customerId);
 
         if (cart.isEmpty()) {
             throw new EmptyCartException();
         }
 
         // Vaciar el carrito
-        cartService.clearCart();
+        cartService.clearCart(customerId);
 
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * El pedido ya quedó creado: si guardar el carrito falla, no se responde con
+     * error; el carrito sigue pendiente y lo guarda el próximo lote
+     */
+    private void flushCartQuietly(String customerId) {
+        try {
+            cartService.flushCart(customerId);
+        } catch (RuntimeException e) {
+            System.err.println("Error al guardar el carrito después del checkout: " + e.getMessage());
+        }
+    }
+
     //Metodo auxiliar para convertir el modelo Order a OrderResponseDTO
 
     private OrderResponseDTO convertToOrderDTO(Order order) {
@@ -99,8 +116,8 @@ public class OrderController {
                         item.getProduct().getId().longValue(),
                         item.getProduct().getName(),
                         item.getQuantity(),
-                        item.getProduct().getPrice(),
-                        item.getSubtotal()
+                        Money.toDecimal(item.getProduct().getPrice()),
+                        Money.toDecimal(item.getSubtotal())
                 ))
                 .collect(Collectors.toList());
 
@@ -114,9 +131,9 @@ public class OrderController {
                 order.getOrderId(),
                 orderDate,
                 items,
-                order.getSubtotal(),
-                order.getDiscount(),
-                order.getFinalTotal()
+                Money.toDecimal(order.getSubtotal()),
+                Money.toDecimal(order.getDiscount()),
+                Money.toDecimal(order.getFinalTotal())
         );
     }
 }
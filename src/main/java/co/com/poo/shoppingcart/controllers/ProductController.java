@@ -1,18 +1,45 @@
 package co.com.poo.shoppingcart.controllers;
 
 import co.com.poo.shoppingcart.dto.request.CreateProductRequestDTO;
+import co.com.poo.shoppingcart.dto.response.ProductFacetsResponseDTO;
+import co.com.poo.shoppingcart.dto.response.ProductImportResponseDTO;
+import co.com.poo.shoppingcart.dto.response.ProductPageResponseDTO;
 import co.com.poo.shoppingcart.dto.response.ProductResponseDTO;
+import co.com.poo.shoppingcart.dto.response.ProductStockResponseDTO;
+import co.com.poo.shoppingcart.exception.InvalidImportFormatException;
 import co.com.poo.shoppingcart.exception.ProductNotFoundException;
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.FacetCounts;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.model.ProductImportReport;
+import co.com.poo.shoppingcart.model.ProductPage;
+import co.com.poo.shoppingcart.model.StockLevel;
+import co.com.poo.shoppingcart.repositories.ProductFilter;
+import co.com.poo.shoppingcart.services.ProductImportService;
 import co.com.poo.shoppingcart.services.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Locale;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controller para manejar todas las operaciones relacionadas con productos.
@@ -22,20 +49,36 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    /**
+     * Tipo de contenido de la exportación: un JSON por línea
+     */
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    // Cada cuántos productos se envía al cliente lo que se lleva escrito
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
-     * 1. Ver catálogo completo de productos
-     * GET /api/products
+     * 1. Ver catálogo de productos, paginado
+     * GET /api/products?sort=price&limit=50&cursor=...
+     * sort: id (por defecto), price o name; limit: máximo 200
      */
     @GetMapping
-    public ResponseEntity<List<ProductResponseDTO>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        List<ProductResponseDTO> response = products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ProductPageResponseDTO> getAllProducts(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        ProductPage page = productService.getProductPage(ProductFilter.all(), sort, cursor, limit);
+        return ResponseEntity.ok(convertToPageDTO(page));
     }
 
     /**
@@ -63,7 +106,7 @@ public class ProductController {
                 null,
                 request.getName(),
                 request.getCategory(),
-                request.getPrice(),
+                Money.fromDecimal(request.getPrice()),
                 request.getStock()
         );
 
@@ -84,7 +127,7 @@ public class ProductController {
                 id.intValue(),
                 request.getName(),
                 request.getCategory(),
-                request.getPrice(),
+                Money.fromDecimal(request.getPrice()),
                 request.getStock()
         );
 
@@ -111,46 +154,64 @@ public class ProductController {
 
     /**
      * 6. Consultar productos por categoría
-     * GET /api/products/category/{category}
+     * GET /api/products/category/{category}?sort=&limit=&cursor=
      */
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByCategory(
-            @PathVariable String category) {
+    public ResponseEntity<ProductPageResponseDTO> getProductsByCategory(
+            @PathVariable String category,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
-        List<Product> products = productService.getProductsByCategory(category);
-        List<ProductResponseDTO> response = products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(response);
+        ProductFilter filter = ProductFilter.category(Product.categoryKey(category));
+        ProductPage page = productService.getProductPage(filter, sort, cursor, limit);
+        return ResponseEntity.ok(convertToPageDTO(page));
     }
 
     /**
      * 7. Consultar productos con precio mayor a X
-     * GET /api/products/price/greater-than?minPrice=100000
+     * GET /api/products/price/greater-than?minPrice=100000&sort=&limit=&cursor=
      */
     @GetMapping("/price/greater-than")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByPriceGreaterThan(
-            @RequestParam Double minPrice) {
+    public ResponseEntity<ProductPageResponseDTO> getProductsByPriceGreaterThan(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
 
-        List<Product> products = productService.getProductsByPriceGreaterThan(minPrice);
-        List<ProductResponseDTO> response = products.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(response);
+        ProductFilter filter = ProductFilter.priceGreaterThan(Money.toDecimal(Money.fromDecimal(minPrice)));
+        ProductPage page = productService.getProductPage(filter, sort, cursor, limit);
+        return ResponseEntity.ok(convertToPageDTO(page));
     }
 
     /**
      * 8. Consultar productos en un rango de precios
-     * GET /api/products/price/range?minPrice=50000&maxPrice=200000
+     * GET /api/products/price/range?minPrice=50000&maxPrice=200000&sort=&limit=&cursor=
      */
     @GetMapping("/price/range")
-    public ResponseEntity<List<ProductResponseDTO>> getProductsByPriceRange(
-            @RequestParam Double minPrice,
-            @RequestParam Double maxPrice) {
+    public ResponseEntity<ProductPageResponseDTO> getProductsByPriceRange(
+            @RequestParam BigDecimal minPrice,
+            @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        ProductFilter filter = ProductFilter.priceBetween(
+                Money.toDecimal(Money.fromDecimal(minPrice)), Money.toDecimal(Money.fromDecimal(maxPrice)));
+        ProductPage page = productService.getProductPage(filter, sort, cursor, limit);
+        return ResponseEntity.ok(convertToPageDTO(page));
+    }
+
+    /**
+     * 9. Buscar productos por texto (nombre y descripción), los más relevantes primero
+     * GET /api/products/search?q=audifonos&limit=20
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductResponseDTO>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
 
-        List<Product> products = productService.getProductsByPriceRange(minPrice, maxPrice);
+        List<Product> products = productService.searchProducts(q, limit);
         List<ProductResponseDTO> response = products.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -158,14 +219,186 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 10. Exportar el catálogo completo como NDJSON (un producto por línea)
+     * GET /api/products/export
+     *
+     * Los productos se escriben a medida que se leen de la base de datos, así la
+     * memoria no crece con el catálogo y el primer producto sale de inmediato.
+     * Si el cliente envía "Accept-Encoding: gzip" la respuesta va comprimida.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        ObjectWriter writer = objectMapper.writerFor(ProductResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192, true) : out;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+                generator.setRootValueSeparator(null);
+                int[] written = {0};
+                productService.forEachProduct(product -> {
+                    try {
+                        writer.writeValue(generator, convertToDTO(product));
+                        generator.writeRaw('\n');
+                        if (++written[0] == 1 || written[0] % EXPORT_FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * 11. Importar productos de forma masiva (crea o actualiza por ID)
+     * POST /api/products/import?format=pipe|csv
+     *
+     * El cuerpo es el archivo en texto: formato ID|Titulo|Categoria|Precio (como
+     * products.txt) o CSV. Sin format se usa CSV si el Content-Type es text/csv.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ProductImportResponseDTO> importProducts(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream body) throws IOException {
+
+        ProductImportService.Format importFormat;
+        if (format != null) {
+            try {
+                importFormat = ProductImportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidImportFormatException(format);
+            }
+        } else {
+            importFormat = contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv")
+                    ? ProductImportService.Format.CSV
+                    : ProductImportService.Format.PIPE;
+        }
+
+        ProductImportReport report = productImportService.importProducts(body, importFormat);
+        List<ProductImportResponseDTO.RowErrorDTO> errors = report.getErrors().stream()
+                .map(e -> new ProductImportResponseDTO.RowErrorDTO(e.getLine(), e.getMessage()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new ProductImportResponseDTO(report.getImported(), report.getFailed(), errors));
+    }
+
+    /**
+     * 12. Descargar el catálogo como snapshot binario
+     * GET /api/products/snapshot
+     *
+     * El archivo se puede usar en la consola con -Dproducts.snapshot=ruta
+     * (ver SnapshotProductManager).
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<StreamingResponseBody> downloadSnapshot() {
+        StreamingResponseBody body = out -> productService.snapshotWriter().writeTo(out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog.snap\"")
+                .body(body);
+    }
+
+    /**
+     * 13. Consulta combinada: categoría, rango de precios, solo con stock y
+     * prefijo del nombre; todos los parámetros son opcionales
+     * GET /api/products/query?category=&minPrice=&maxPrice=&inStock=true&namePrefix=&sort=&limit=&cursor=
+     */
+    @GetMapping("/query")
+    public ResponseEntity<ProductPageResponseDTO> queryProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+
+        ProductFilter filter = ProductFilter.query(
+                Product.categoryKey(category),
+                minPrice == null ? null : Money.toDecimal(Money.fromDecimal(minPrice)),
+                maxPrice == null ? null : Money.toDecimal(Money.fromDecimal(maxPrice)),
+                inStock,
+                namePrefix == null ? null : namePrefix.trim());
+        ProductPage page = productService.getProductPage(filter, sort, cursor, limit);
+        return ResponseEntity.ok(convertToPageDTO(page));
+    }
+
+    /**
+     * 14. Facetas para el filtro actual: conteos por categoría, histograma de
+     * precios y productos con stock; todos los parámetros son opcionales
+     * GET /api/products/facets?category=&minPrice=&maxPrice=&inStock=true
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsResponseDTO> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock) {
+
+        CatalogFilter filter = CatalogFilter.of(
+                category,
+                minPrice == null ? null : Money.fromDecimal(minPrice),
+                maxPrice == null ? null : Money.fromDecimal(maxPrice),
+                inStock);
+        FacetCounts facets = productService.getFacets(filter);
+
+        List<ProductFacetsResponseDTO.CategoryCountDTO> categories = facets.getCategories().stream()
+                .map(c -> new ProductFacetsResponseDTO.CategoryCountDTO(c.getCategory(), c.getCount()))
+                .collect(Collectors.toList());
+        List<ProductFacetsResponseDTO.PriceBucketDTO> buckets = facets.getPriceBuckets().stream()
+                .map(b -> new ProductFacetsResponseDTO.PriceBucketDTO(
+                        Money.toDecimal(b.getMinPrice()),
+                        b.getMaxPrice() == null ? null : Money.toDecimal(b.getMaxPrice()),
+                        b.getCount()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new ProductFacetsResponseDTO(facets.getTotal(), facets.getInStock(), categories, buckets));
+    }
+
+    /**
+     * 15. Stock exacto de un producto: unidades que aún se pueden reservar y
+     * unidades reservadas por carritos (available es null si no maneja stock)
+     * GET /api/products/{id}/stock
+     */
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<ProductStockResponseDTO> getProductStock(@PathVariable Long id) {
+        StockLevel level = productService.getStockLevel(id);
+        if (level == null) {
+            throw new ProductNotFoundException(id);
+        }
+        return ResponseEntity.ok(new ProductStockResponseDTO(
+                id, level.getAvailable(), level.getReserved(), level.getStripes()));
+    }
+
     //Metodo auxiliar para convertir a DTO
 
+    private ProductPageResponseDTO convertToPageDTO(ProductPage page) {
+        List<ProductResponseDTO> items = page.getItems().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        return new ProductPageResponseDTO(items, page.getNextCursor());
+    }
+
     private ProductResponseDTO convertToDTO(Product product) {
         return new ProductResponseDTO(
                 product.getId().longValue(),
                 product.getName(),
                 product.getCategory(),
-                product.getPrice(),
+                Money.toDecimal(product.getPrice()),
                 product.getStock()
         );
     }
@@ -0,0 +1,29 @@
+package co.com.poo.shoppingcart.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para aplicar varias operaciones al carrito en una sola petición.
+ * Las operaciones se aplican en el orden recibido.
+ */
+public class CartBatchRequestDTO {
+
+    @NotEmpty(message = "Debe enviar al menos una operación")
+    @Size(max = 500, message = "Máximo 500 operaciones por lote")
+    private List<@Valid CartOperationRequestDTO> operations;
+
+    // Constructores
+    public CartBatchRequestDTO() {}
+
+    public CartBatchRequestDTO(List<CartOperationRequestDTO> operations) {
+        this.operations = operations;
+    }
+
+    // Getters y Setters
+    public List<CartOperationRequestDTO> getOperations() { return operations; }
+    public void setOperations(List<CartOperationRequestDTO> operations) { this.operations = operations; }
+}
@@ -0,0 +1,42 @@
+package co.com.poo.shoppingcart.dto.request;
+
+import co.com.poo.shoppingcart.model.CartOperation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * DTO para una operación dentro de un lote de cambios al carrito.
+ * La cantidad es obligatoria para ADD y UPDATE; se ignora en REMOVE.
+ */
+public class CartOperationRequestDTO {
+
+    @NotNull(message = "El tipo de operación es obligatorio (ADD, UPDATE o REMOVE)")
+    private CartOperation.Type type;
+
+    @NotNull(message = "El ID del producto es obligatorio")
+    @Positive(message = "El ID del producto debe ser mayor a 0")
+    @Max(value = Integer.MAX_VALUE, message = "ID fuera de rango")
+    private Long productId;
+
+    private Integer quantity;
+
+    // Constructores
+    public CartOperationRequestDTO() {}
+
+    public CartOperationRequestDTO(CartOperation.Type type, Long productId, Integer quantity) {
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    // Getters y Setters
+    public CartOperation.Type getType() { return type; }
+    public void setType(CartOperation.Type type) { this.type = type; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
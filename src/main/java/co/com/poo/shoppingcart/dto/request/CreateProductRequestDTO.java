@@ -1,9 +1,12 @@
 package co.com.poo.shoppingcart.dto.request;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
+import java.math.BigDecimal;
+
 /**
  * DTO para crear un nuevo producto.
  * Contiene validaciones para asegurar datos correctos.
@@ -18,7 +21,8 @@ public class CreateProductRequestDTO {
 
     @NotNull(message = "El precio es obligatorio")
     @Positive(message = "El precio debe ser mayor a 0")
-    private Double price;
+    @Digits(integer = 13, fraction = 2, message = "El precio admite máximo 2 decimales")
+    private BigDecimal price;
 
     @NotNull(message = "El stock es obligatorio")
     @Positive(message = "El stock debe ser mayor a 0")
@@ -27,7 +31,7 @@ public class CreateProductRequestDTO {
     // Constructores
     public CreateProductRequestDTO() {}
 
-    public CreateProductRequestDTO(String name, String category, Double price, Integer stock) {
+    public CreateProductRequestDTO(String name, String category, BigDecimal price, Integer stock) {
         this.name = name;
         this.category = category;
         this.price = price;
@@ -41,8 +45,8 @@ public class CreateProductRequestDTO {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
-    public Double getPrice() { return price; }
-    public void setPrice(Double price) { this.price = price; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
 
     public Integer getStock() { return stock; }
     public void setStock(Integer stock) { this.stock = stock; }
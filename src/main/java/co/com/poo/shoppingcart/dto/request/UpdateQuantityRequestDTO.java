@@ -1,5 +1,6 @@
 package co.com.poo.shoppingcart.dto.request;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 
@@ -9,6 +10,8 @@ import jakarta.validation.constraints.Positive;
 public class UpdateQuantityRequestDTO {
 
     @NotNull(message = "El ID del producto es obligatorio")
+    @Positive(message = "El ID del producto debe ser mayor a 0")
+    @Max(value = Integer.MAX_VALUE, message = "ID fuera de rango")
     private Long productId;
 
     @NotNull(message = "La nueva cantidad es obligatoria")
@@ -0,0 +1,28 @@
+package co.com.poo.shoppingcart.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO para devolver el resultado de un lote de cambios: el resultado de cada
+ * operación (en el mismo orden) y el carrito final.
+ */
+public class CartBatchResponseDTO {
+
+    private List<CartOperationResultDTO> results;
+    private CartResponseDTO cart;
+
+    // Constructores
+    public CartBatchResponseDTO() {}
+
+    public CartBatchResponseDTO(List<CartOperationResultDTO> results, CartResponseDTO cart) {
+        this.results = results;
+        this.cart = cart;
+    }
+
+    // Getters y Setters
+    public List<CartOperationResultDTO> getResults() { return results; }
+    public void setResults(List<CartOperationResultDTO> results) { this.results = results; }
+
+    public CartResponseDTO getCart() { return cart; }
+    public void setCart(CartResponseDTO cart) { this.cart = cart; }
+}
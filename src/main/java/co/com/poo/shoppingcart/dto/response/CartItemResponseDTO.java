@@ -1,5 +1,7 @@
 package co.com.poo.shoppingcart.dto.response;
 
+import java.math.BigDecimal;
+
 /**
  * DTO para representar un item dentro del carrito.
  */
@@ -7,15 +9,15 @@ public class CartItemResponseDTO {
 
     private Long productId;
     private String productName;
-    private Double unitPrice;
+    private BigDecimal unitPrice;
     private Integer quantity;
-    private Double subtotal;
+    private BigDecimal subtotal;
 
     // Constructores
     public CartItemResponseDTO() {}
 
-    public CartItemResponseDTO(Long productId, String productName, Double unitPrice,
-                               Integer quantity, Double subtotal) {
+    public CartItemResponseDTO(Long productId, String productName, BigDecimal unitPrice,
+                               Integer quantity, BigDecimal subtotal) {
         this.productId = productId;
         this.productName = productName;
         this.unitPrice = unitPrice;
@@ -30,12 +32,12 @@ public class CartItemResponseDTO {
     public String getProductName() { return productName; }
     public void setProductName(String productName) { this.productName = productName; }
 
-    public Double getUnitPrice() { return unitPrice; }
-    public void setUnitPrice(Double unitPrice) { this.unitPrice = unitPrice; }
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
 
     public Integer getQuantity() { return quantity; }
     public void setQuantity(Integer quantity) { this.quantity = quantity; }
 
-    public Double getSubtotal() { return subtotal; }
-    public void setSubtotal(Double subtotal) { this.subtotal = subtotal; }
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
 }
@@ -0,0 +1,46 @@
+package co.com.poo.shoppingcart.dto.response;
+
+/**
+ * DTO con el resultado de una operación de un lote de cambios al carrito.
+ */
+public class CartOperationResultDTO {
+
+    private Integer index;
+    private String type;
+    private Long productId;
+    private Boolean success;
+    private String code;
+    private String message;
+
+    // Constructores
+    public CartOperationResultDTO() {}
+
+    public CartOperationResultDTO(Integer index, String type, Long productId,
+                                  Boolean success, String code, String message) {
+        this.index = index;
+        this.type = type;
+        this.productId = productId;
+        this.success = success;
+        this.code = code;
+        this.message = message;
+    }
+
+    // Getters y Setters
+    public Integer getIndex() { return index; }
+    public void setIndex(Integer index) { this.index = index; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Boolean getSuccess() { return success; }
+    public void setSuccess(Boolean success) { this.success = success; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
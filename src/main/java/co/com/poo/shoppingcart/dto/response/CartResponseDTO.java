@@ -1,5 +1,6 @@
 package co.com.poo.shoppingcart.dto.response;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -8,13 +9,13 @@ import java.util.List;
 public class CartResponseDTO {
 
     private List<CartItemResponseDTO> items;
-    private Double totalAmount;
+    private BigDecimal totalAmount;
     private Boolean isEmpty;
 
     // Constructores
     public CartResponseDTO() {}
 
-    public CartResponseDTO(List<CartItemResponseDTO> items, Double totalAmount, Boolean isEmpty) {
+    public CartResponseDTO(List<CartItemResponseDTO> items, BigDecimal totalAmount, Boolean isEmpty) {
         this.items = items;
         this.totalAmount = totalAmount;
         this.isEmpty = isEmpty;
@@ -24,8 +25,8 @@ public class CartResponseDTO {
     public List<CartItemResponseDTO> getItems() { return items; }
     public void setItems(List<CartItemResponseDTO> items) { this.items = items; }
 
-    public Double getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(Double totalAmount) { this.totalAmount = totalAmount; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
 
     public Boolean getIsEmpty() { return isEmpty; }
     public void setIsEmpty(Boolean isEmpty) { this.isEmpty = isEmpty; }
@@ -1,5 +1,7 @@
 package co.com.poo.shoppingcart.dto.response;
 
+import java.math.BigDecimal;
+
 /**
  * DTO para representar un item dentro de una orden cerrada.
  */
@@ -8,14 +10,14 @@ public class OrderItemResponseDTO {
     private Long productId;
     private String productName;
     private Integer quantity;
-    private Double unitPrice;
-    private Double subtotal;
+    private BigDecimal unitPrice;
+    private BigDecimal subtotal;
 
     // Constructores
     public OrderItemResponseDTO() {}
 
     public OrderItemResponseDTO(Long productId, String productName, Integer quantity,
-                                Double unitPrice, Double subtotal) {
+                                BigDecimal unitPrice, BigDecimal subtotal) {
         this.productId = productId;
         this.productName = productName;
         this.quantity = quantity;
@@ -33,9 +35,9 @@ public class OrderItemResponseDTO {
     public Integer getQuantity() { return quantity; }
     public void setQuantity(Integer quantity) { this.quantity = quantity; }
 
-    public Double getUnitPrice() { return unitPrice; }
-    public void setUnitPrice(Double unitPrice) { this.unitPrice = unitPrice; }
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
 
-    public Double getSubtotal() { return subtotal; }
-    public void setSubtotal(Double subtotal) { this.subtotal = subtotal; }
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
 }
@@ -1,5 +1,6 @@
 package co.com.poo.shoppingcart.dto.response;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -11,15 +12,15 @@ public class OrderResponseDTO {
     private String orderId;
     private LocalDateTime date;
     private List<OrderItemResponseDTO> items;
-    private Double subtotal;
-    private Double discount;
-    private Double finalTotal;
+    private BigDecimal subtotal;
+    private BigDecimal discount;
+    private BigDecimal finalTotal;
 
     // Constructores
     public OrderResponseDTO() {}
 
     public OrderResponseDTO(String orderId, LocalDateTime date, List<OrderItemResponseDTO> items,
-                            Double subtotal, Double discount, Double finalTotal) {
+                            BigDecimal subtotal, BigDecimal discount, BigDecimal finalTotal) {
         this.orderId = orderId;
         this.date = date;
         this.items = items;
@@ -38,12 +39,12 @@ public class OrderResponseDTO {
     public List<OrderItemResponseDTO> getItems() { return items; }
     public void setItems(List<OrderItemResponseDTO> items) { this.items = items; }
 
-    public Double getSubtotal() { return subtotal; }
-    public void setSubtotal(Double subtotal) { this.subtotal = subtotal; }
+    public BigDecimal getSubtotal() { return subtotal; }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
 
-    public Double getDiscount() { return discount; }
-    public void setDiscount(Double discount) { this.discount = discount; }
+    public BigDecimal getDiscount() { return discount; }
+    public void setDiscount(BigDecimal discount) { this.discount = discount; }
 
-    public Double getFinalTotal() { return finalTotal; }
-    public void setFinalTotal(Double finalTotal) { this.finalTotal = finalTotal; }
+    public BigDecimal getFinalTotal() { return finalTotal; }
+    public void setFinalTotal(BigDecimal finalTotal) { this.finalTotal = finalTotal; }
 }
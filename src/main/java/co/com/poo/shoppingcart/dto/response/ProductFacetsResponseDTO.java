@@ -0,0 +1,86 @@
+package co.com.poo.shoppingcart.dto.response;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO con las facetas del catálogo para un filtro.
+ */
+public class ProductFacetsResponseDTO {
+
+    /**
+     * Cantidad de productos de una categoría
+     */
+    public static class CategoryCountDTO {
+        private String category;
+        private Integer count;
+
+        public CategoryCountDTO() {}
+
+        public CategoryCountDTO(String category, Integer count) {
+            this.category = category;
+            this.count = count;
+        }
+
+        public String getCategory() { return category; }
+        public void setCategory(String category) { this.category = category; }
+
+        public Integer getCount() { return count; }
+        public void setCount(Integer count) { this.count = count; }
+    }
+
+    /**
+     * Cantidad de productos con precio en [minPrice, maxPrice); maxPrice null = sin límite
+     */
+    public static class PriceBucketDTO {
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private Integer count;
+
+        public PriceBucketDTO() {}
+
+        public PriceBucketDTO(BigDecimal minPrice, BigDecimal maxPrice, Integer count) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.count = count;
+        }
+
+        public BigDecimal getMinPrice() { return minPrice; }
+        public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+        public BigDecimal getMaxPrice() { return maxPrice; }
+        public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+
+        public Integer getCount() { return count; }
+        public void setCount(Integer count) { this.count = count; }
+    }
+
+    private Integer total;
+    private Integer inStock;
+    private List<CategoryCountDTO> categories;
+    private List<PriceBucketDTO> priceBuckets;
+
+    // Constructores
+    public ProductFacetsResponseDTO() {}
+
+    public ProductFacetsResponseDTO(Integer total, Integer inStock,
+                                    List<CategoryCountDTO> categories, List<PriceBucketDTO> priceBuckets) {
+        this.total = total;
+        this.inStock = inStock;
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+    }
+
+    // Getters y Setters
+    public Integer getTotal() { return total; }
+    public void setTotal(Integer total) { this.total = total; }
+
+    public Integer getInStock() { return inStock; }
+    public void setInStock(Integer inStock) { this.inStock = inStock; }
+
+    public List<CategoryCountDTO> getCategories() { return categories; }
+    public void setCategories(List<CategoryCountDTO> categories) { this.categories = categories; }
+
+    public List<PriceBucketDTO> getPriceBuckets() { return priceBuckets; }
+    public void setPriceBuckets(List<PriceBucketDTO> priceBuckets) { this.priceBuckets = priceBuckets; }
+}
@@ -0,0 +1,53 @@
+package co.com.poo.shoppingcart.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una importación masiva de productos.
+ */
+public class ProductImportResponseDTO {
+
+    /**
+     * Error de una fila del archivo importado
+     */
+    public static class RowErrorDTO {
+        private Long line;
+        private String message;
+
+        public RowErrorDTO() {}
+
+        public RowErrorDTO(Long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public Long getLine() { return line; }
+        public void setLine(Long line) { this.line = line; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+
+    private Long imported;
+    private Long failed;
+    private List<RowErrorDTO> errors;
+
+    // Constructores
+    public ProductImportResponseDTO() {}
+
+    public ProductImportResponseDTO(Long imported, Long failed, List<RowErrorDTO> errors) {
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    // Getters y Setters
+    public Long getImported() { return imported; }
+    public void setImported(Long imported) { this.imported = imported; }
+
+    public Long getFailed() { return failed; }
+    public void setFailed(Long failed) { this.failed = failed; }
+
+    public List<RowErrorDTO> getErrors() { return errors; }
+    public void setErrors(List<RowErrorDTO> errors) { this.errors = errors; }
+}
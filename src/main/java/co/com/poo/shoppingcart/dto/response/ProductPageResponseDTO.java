@@ -0,0 +1,29 @@
+package co.com.poo.shoppingcart.dto.response;
+
+import java.util.List;
+
+/**
+ * DTO para devolver una página de productos.
+ * nextCursor se envía como parámetro "cursor" para pedir la siguiente página;
+ * es null en la última.
+ */
+public class ProductPageResponseDTO {
+
+    private List<ProductResponseDTO> items;
+    private String nextCursor;
+
+    // Constructores
+    public ProductPageResponseDTO() {}
+
+    public ProductPageResponseDTO(List<ProductResponseDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters y Setters
+    public List<ProductResponseDTO> getItems() { return items; }
+    public void setItems(List<ProductResponseDTO> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -1,5 +1,7 @@
 package co.com.poo.shoppingcart.dto.response;
 
+import java.math.BigDecimal;
+
 /**
  * DTO para devolver información de un producto al cliente.
  * Solo incluye los campos necesarios (no expone detalles internos).
@@ -9,13 +11,13 @@ public class ProductResponseDTO {
     private Long id;
     private String name;
     private String category;
-    private Double price;
+    private BigDecimal price;
     private Integer stock;
 
     // Constructores
     public ProductResponseDTO() {}
 
-    public ProductResponseDTO(Long id, String name, String category, Double price, Integer stock) {
+    public ProductResponseDTO(Long id, String name, String category, BigDecimal price, Integer stock) {
         this.id = id;
         this.name = name;
         this.category = category;
@@ -33,8 +35,8 @@ public class ProductResponseDTO {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
-    public Double getPrice() { return price; }
-    public void setPrice(Double price) { this.price = price; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
 
     public Integer getStock() { return stock; }
     public void setStock(Integer stock) { this.stock = stock; }
@@ -0,0 +1,35 @@
+package co.com.poo.shoppingcart.dto.response;
+
+/**
+ * DTO con el stock exacto de un producto.
+ */
+public class ProductStockResponseDTO {
+
+    private Long productId;
+    private Integer available;
+    private Integer reserved;
+    private Integer stripes;
+
+    // Constructores
+    public ProductStockResponseDTO() {}
+
+    public ProductStockResponseDTO(Long productId, Integer available, Integer reserved, Integer stripes) {
+        this.productId = productId;
+        this.available = available;
+        this.reserved = reserved;
+        this.stripes = stripes;
+    }
+
+    // Getters y Setters
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Integer getAvailable() { return available; }
+    public void setAvailable(Integer available) { this.available = available; }
+
+    public Integer getReserved() { return reserved; }
+    public void setReserved(Integer reserved) { this.reserved = reserved; }
+
+    public Integer getStripes() { return stripes; }
+    public void setStripes(Integer stripes) { this.stripes = stripes; }
+}
@@ -1,6 +1,7 @@
 package co.com.poo.shoppingcart.entities;
 
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
@@ -12,15 +13,16 @@ public class OrderEntity {
     private Long id;
 
     private String customerName;
-    private Double total;
+    @Column(precision = 15, scale = 2)
+    private BigDecimal total;
     private LocalDateTime orderDate;
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getCustomerName() { return customerName; }
     public void setCustomerName(String customerName) { this.customerName = customerName; }
-    public Double getTotal() { return total; }
-    public void setTotal(Double total) { this.total = total; }
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
     public LocalDateTime getOrderDate() { return orderDate; }
     public void setOrderDate(LocalDateTime orderDate) { this.orderDate = orderDate; }
 }
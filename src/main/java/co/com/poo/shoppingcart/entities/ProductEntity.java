@@ -1,9 +1,17 @@
 package co.com.poo.shoppingcart.entities;
 
+import co.com.poo.shoppingcart.model.Product;
 import jakarta.persistence.*;
 
+import java.math.BigDecimal;
+
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_id", columnList = "category_key, id"),
+        @Index(name = "idx_products_category_price_id", columnList = "category_key, price, id"),
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_name_id", columnList = "name, id")
+})
 public class ProductEntity {
 
     @Id
@@ -12,9 +20,20 @@ public class ProductEntity {
 
     private String name;
     private String description;
-    private Double price;
+    @Column(precision = 15, scale = 2)
+    private BigDecimal price;
     private Integer stock;
 
+    // Categoría normalizada (ver Product.categoryKey), para filtrar por categoría con índice
+    @Column(name = "category_key")
+    private String categoryKey;
+
+    @PrePersist
+    @PreUpdate
+    void updateCategoryKey() {
+        categoryKey = Product.categoryKey(description);
+    }
+
     // Getters y setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -22,8 +41,9 @@ public class ProductEntity {
     public void setName(String name) { this.name = name; }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
-    public Double getPrice() { return price; }
-    public void setPrice(Double price) { this.price = price; }
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
     public Integer getStock() { return stock; }
     public void setStock(Integer stock) { this.stock = stock; }
+    public String getCategoryKey() { return categoryKey; }
 }
@@ -0,0 +1,22 @@
+package co.com.poo.shoppingcart.exception;
+
+import co.com.poo.shoppingcart.model.Cart;
+
+/**
+ * Se lanza cuando el cliente intenta modificar el carrito con un If-Match
+ * que ya no corresponde a la versión actual (otra petición lo cambió antes).
+ * Lleva el carrito vigente para que el cliente pueda reintentar.
+ */
+public class CartVersionMismatchException extends RuntimeException {
+
+    private final Cart currentCart;
+
+    public CartVersionMismatchException(Cart currentCart) {
+        super("El carrito fue modificado por otra petición");
+        this.currentCart = currentCart;
+    }
+
+    public Cart getCurrentCart() {
+        return currentCart;
+    }
+}
@@ -57,6 +57,45 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
   }
 
+  /**
+   * Maneja excepciones de stock insuficiente.
+   * Retorna HTTP 409 (Conflict)
+   */
+  @ExceptionHandler(InsufficientStockException.class)
+  public ResponseEntity<ErrorResponseDTO> handleInsufficientStockException(InsufficientStockException ex) {
+    ErrorResponseDTO error = new ErrorResponseDTO(
+            "INSUFFICIENT_STOCK",
+            ex.getMessage()
+    );
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+  }
+
+  /**
+   * Maneja parámetros de paginación inválidos (orden, cursor o tamaño).
+   * Retorna HTTP 400 (Bad Request)
+   */
+  @ExceptionHandler(InvalidPageRequestException.class)
+  public ResponseEntity<ErrorResponseDTO> handleInvalidPageRequestException(InvalidPageRequestException ex) {
+    ErrorResponseDTO error = new ErrorResponseDTO(
+            "INVALID_PAGE_REQUEST",
+            ex.getMessage()
+    );
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+  }
+
+  /**
+   * Maneja formatos de importación desconocidos.
+   * Retorna HTTP 400 (Bad Request)
+   */
+  @ExceptionHandler(InvalidImportFormatException.class)
+  public ResponseEntity<ErrorResponseDTO> handleInvalidImportFormatException(InvalidImportFormatException ex) {
+    ErrorResponseDTO error = new ErrorResponseDTO(
+            "INVALID_IMPORT_FORMAT",
+            ex.getMessage()
+    );
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+  }
+
   /**
    * Maneja errores de validación de DTOs (anotaciones @Valid).
    * Retorna HTTP 400 (Bad Request) con detalles de los campos inválidos.
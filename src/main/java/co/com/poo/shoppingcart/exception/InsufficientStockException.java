@@ -0,0 +1,24 @@
+package co.com.poo.shoppingcart.exception;
+
+/**
+ * Se lanza cuando no hay stock suficiente para reservar o vender un producto.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final int productId;
+    private final int available;
+
+    public InsufficientStockException(int productId, int available) {
+        super("Stock insuficiente para el producto con ID " + productId + " (disponible: " + Math.max(0, available) + ")");
+        this.productId = productId;
+        this.available = Math.max(0, available);
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+}
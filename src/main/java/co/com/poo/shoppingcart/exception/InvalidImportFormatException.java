@@ -0,0 +1,7 @@
+package co.com.poo.shoppingcart.exception;
+
+public class InvalidImportFormatException extends RuntimeException {
+    public InvalidImportFormatException(String format) {
+        super("Formato no soportado: " + format + " (use pipe o csv)");
+    }
+}
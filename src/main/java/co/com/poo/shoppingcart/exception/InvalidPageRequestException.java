@@ -0,0 +1,7 @@
+package co.com.poo.shoppingcart.exception;
+
+public class InvalidPageRequestException extends RuntimeException {
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
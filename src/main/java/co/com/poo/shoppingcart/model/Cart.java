@@ -1,43 +1,112 @@
 package co.com.poo.shoppingcart.model;
 
-import java.util.ArrayList;
+import co.com.poo.shoppingcart.util.IntIntHashMap;
+
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 
+/**
+ * Carrito de compras.
+ *
+ * Las líneas se guardan en un arreglo en orden de inserción y se indexan por
+ * ID de producto (int), así buscar, agregar, actualizar o eliminar una línea
+ * cuesta O(1). El total se actualiza con la diferencia de cada cambio en vez
+ * de volver a sumar todas las líneas. Los montos son long en unidades
+ * mínimas (ver Money), así que no hay boxing ni errores de redondeo.
+ * Las cantidades deben cambiarse a través del carrito, no del CartItem.
+ * Cada cambio incrementa la versión del carrito (se usa como ETag).
+ */
 public class Cart {
-    private List<CartItem> items = new ArrayList<>();
-    private Double totalAmount = 0.0;
+    private CartItem[] items = new CartItem[8]; // null = línea eliminada
+    private int length;                         // posiciones usadas (incluye huecos)
+    private int count;                          // líneas vigentes
+    private final IntIntHashMap index = new IntIntHashMap(); // productId -> posición
+    private long totalAmount;
+    private long version;
 
     public void addItem(CartItem item) {
-        Optional<CartItem> existing = items.stream()
-                .filter(i -> i.getProductId().equals(item.getProductId()))
-                .findFirst();
+        int pos = index.get(item.getProductId());
+        if (pos != IntIntHashMap.NO_VALUE) {
+            CartItem existing = items[pos];
+            changeQuantity(existing, existing.getQuantity() + item.getQuantity());
+            return;
+        }
+        if (length == items.length) {
+            makeRoom();
+        }
+        items[length] = item;
+        index.put(item.getProductId(), length);
+        length++;
+        count++;
+        totalAmount += item.getSubtotal();
+        version++;
+    }
 
-        if (existing.isPresent()) {
-            existing.get().setQuantity(existing.get().getQuantity() + item.getQuantity());
+    public void removeItem(int productId) {
+        int pos = index.remove(productId);
+        if (pos == IntIntHashMap.NO_VALUE) return;
+        CartItem item = items[pos];
+        items[pos] = null;
+        count--;
+        version++;
+        if (count == 0) {
+            clear();
         } else {
-            items.add(item);
+            totalAmount -= item.getSubtotal();
         }
-        calculateTotal();
     }
 
     public void removeItem(String productId) {
-        items.removeIf(i -> i.getProductId().equals(Integer.parseInt(productId)));
-        calculateTotal();
+        removeItem(Integer.parseInt(productId));
     }
 
-    public void updateItem(String productId, Integer quantity) {
+    public void updateItem(int productId, int quantity) {
         if (quantity <= 0) {
             removeItem(productId);
             return;
         }
-        for (CartItem item : items) {
-            if (item.getProductId().equals(Integer.parseInt(productId))) {
-                item.setQuantity(quantity);
-                break;
-            }
+        CartItem item = findItem(productId);
+        if (item != null) {
+            changeQuantity(item, quantity);
+        }
+    }
+
+    public void updateItem(String productId, Integer quantity) {
+        updateItem(Integer.parseInt(productId), quantity);
+    }
+
+    /**
+     * Reemplaza el producto de su línea por una versión más nueva (por ejemplo,
+     * si cambió su precio en el catálogo). Solo cuenta como cambio si difiere
+     * el nombre, la categoría o el precio; el stock no se guarda en la línea.
+     * @return true si la línea cambió
+     */
+    public boolean refreshProduct(Product product) {
+        int pos = index.get(product.getId());
+        if (pos == IntIntHashMap.NO_VALUE) return false;
+        CartItem item = items[pos];
+        Product current = item.getProduct();
+        if (current.getPrice() == product.getPrice()
+                && Objects.equals(current.getName(), product.getName())
+                && Objects.equals(current.getCategory(), product.getCategory())) {
+            return false;
         }
-        calculateTotal();
+        long previous = item.getSubtotal();
+        item.setProduct(product);
+        totalAmount += item.getSubtotal() - previous;
+        version++;
+        return true;
+    }
+
+    /**
+     * Busca un item en el carrito por su ID de producto
+     * @param productId ID del producto a buscar
+     * @return El CartItem si existe, null si no se encuentra
+     */
+    public CartItem findItem(int productId) {
+        int pos = index.get(productId);
+        return pos == IntIntHashMap.NO_VALUE ? null : items[pos];
     }
 
     /**
@@ -47,37 +116,121 @@ public class Cart {
      */
     public CartItem findItem(String productId) {
         try {
-            Integer id = Integer.parseInt(productId);
-            return items.stream()
-                    .filter(item -> item.getProductId().equals(id))
-                    .findFirst()
-                    .orElse(null);
+            return findItem(Integer.parseInt(productId));
         } catch (NumberFormatException e) {
             return null;
         }
     }
 
-    public Double calculateTotal() {
-        totalAmount = items.stream()
-                .mapToDouble(i -> i.getPrice() * i.getQuantity())
-                .sum();
+    /**
+     * Recalcula el total sumando todas las líneas.
+     * Normalmente no hace falta: el total se mantiene con cada cambio.
+     */
+    public long calculateTotal() {
+        long total = 0L;
+        for (int i = 0; i < length; i++) {
+            if (items[i] != null) {
+                total += items[i].getSubtotal();
+            }
+        }
+        totalAmount = total;
         return totalAmount;
     }
 
     public void clear() {
-        items.clear();
-        totalAmount = 0.0;
+        if (count > 0) version++;
+        Arrays.fill(items, 0, length, null);
+        length = 0;
+        count = 0;
+        index.clear();
+        totalAmount = 0L;
+    }
+
+    /**
+     * Crea una copia independiente del carrito (items incluidos)
+     * @return Un nuevo carrito con el mismo contenido
+     */
+    public Cart copy() {
+        Cart copy = new Cart();
+        for (int i = 0; i < length; i++) {
+            if (items[i] != null) {
+                copy.addItem(new CartItem(items[i].getProduct(), items[i].getQuantity()));
+            }
+        }
+        copy.version = version;
+        return copy;
     }
 
     public Boolean isEmpty() {
-        return items.isEmpty();
+        return count == 0;
+    }
+
+    /**
+     * @return Cantidad de líneas (productos distintos) del carrito
+     */
+    public int getItemCount() {
+        return count;
     }
 
+    /**
+     * @return Las líneas en orden de inserción (lista inmutable, no cambia con el carrito)
+     */
     public List<CartItem> getItems() {
-        return items;
+        compact();
+        return List.of(Arrays.copyOf(items, length));
     }
 
-    public Double getTotalAmount() {
+    /**
+     * @return El total en unidades mínimas (centavos)
+     */
+    public long getTotalAmount() {
         return totalAmount;
     }
+
+    /**
+     * @return Versión del contenido; cambia con cada modificación
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    private void changeQuantity(CartItem item, int quantity) {
+        if (item.getQuantity() == quantity) return;
+        version++;
+        long previous = item.getSubtotal();
+        item.setQuantity(quantity);
+        totalAmount += item.getSubtotal() - previous;
+    }
+
+    /**
+     * Si hay muchos huecos se compacta el arreglo; si no, se duplica su tamaño
+     */
+    private void makeRoom() {
+        if (count <= length / 2) {
+            compact();
+        } else {
+            items = Arrays.copyOf(items, items.length * 2);
+        }
+    }
+
+    private void compact() {
+        if (count == length) return;
+        int next = 0;
+        for (int i = 0; i < length; i++) {
+            CartItem item = items[i];
+            if (item != null) {
+                if (next != i) {
+                    items[next] = item;
+                    index.put(item.getProductId(), next);
+                }
+                next++;
+            }
+        }
+        Arrays.fill(items, next, length, null);
+        length = next;
+    }
 }
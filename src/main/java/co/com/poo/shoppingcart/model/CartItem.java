@@ -3,7 +3,7 @@ package co.com.poo.shoppingcart.model;
 public class CartItem {
     private Product product;
     private Integer quantity;
-    private Double subtotal;
+    private long subtotal; // en unidades mínimas (ver Money)
 
     public CartItem(Product product, Integer quantity) {
         this.product = product;
@@ -11,9 +11,9 @@ public class CartItem {
         this.subtotal = calculateSubtotal();
     }
 
-    public Double calculateSubtotal() {
-        if (product == null || quantity == null) return 0.0;
-        subtotal = product.getPrice() * quantity;
+    public long calculateSubtotal() {
+        if (product == null || quantity == null) return 0L;
+        subtotal = Money.times(product.getPrice(), quantity);
         return subtotal;
     }
 
@@ -35,11 +35,11 @@ public class CartItem {
         calculateSubtotal();
     }
 
-    public Double getSubtotal() {
+    public long getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(Double subtotal) {
+    public void setSubtotal(long subtotal) {
         this.subtotal = subtotal;
     }
 
@@ -48,7 +48,7 @@ public class CartItem {
         return "CartItem{" +
                 "product=" + product +
                 ", quantity=" + quantity +
-                ", subtotal=" + subtotal +
+                ", subtotal=" + Money.format(subtotal) +
                 '}';
     }
 
@@ -56,7 +56,7 @@ public class CartItem {
         return product.getId();
     }
 
-    public Double getPrice() {
+    public long getPrice() {
         return product.getPrice();
     }
 }
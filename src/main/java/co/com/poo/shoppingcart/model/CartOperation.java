@@ -0,0 +1,60 @@
+package co.com.poo.shoppingcart.model;
+
+/**
+ * Una operación dentro de un lote de cambios al carrito (agregar, actualizar
+ * o eliminar) junto con su resultado una vez aplicada.
+ */
+public class CartOperation {
+
+    public enum Type { ADD, UPDATE, REMOVE }
+
+    private final Type type;
+    private final int productId;
+    private final int quantity;
+
+    private boolean success;
+    private String errorCode;
+    private String message;
+
+    public CartOperation(Type type, int productId, int quantity) {
+        this.type = type;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public void succeed() {
+        this.success = true;
+        this.errorCode = null;
+        this.message = null;
+    }
+
+    public void fail(String errorCode, String message) {
+        this.success = false;
+        this.errorCode = errorCode;
+        this.message = message;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,57 @@
+package co.com.poo.shoppingcart.model;
+
+/**
+ * Filtro combinado del catálogo: categoría, rango de precios y solo con stock.
+ * Cualquier condición puede omitirse (null o false).
+ */
+public class CatalogFilter {
+
+    private final String categoryKey;
+    private final Long minPrice;
+    private final Long maxPrice;
+    private final boolean inStockOnly;
+
+    private CatalogFilter(String categoryKey, Long minPrice, Long maxPrice, boolean inStockOnly) {
+        this.categoryKey = categoryKey;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStockOnly = inStockOnly;
+    }
+
+    /**
+     * @param category Categoría (se normaliza con Product.categoryKey), o null/vacía
+     * @param minPrice Precio mínimo en unidades mínimas (inclusive), o null
+     * @param maxPrice Precio máximo en unidades mínimas (inclusive), o null
+     * @param inStockOnly Solo productos con stock mayor a 0
+     */
+    public static CatalogFilter of(String category, Long minPrice, Long maxPrice, boolean inStockOnly) {
+        String key = Product.categoryKey(category);
+        return new CatalogFilter(key == null || key.isEmpty() ? null : key, minPrice, maxPrice, inStockOnly);
+    }
+
+    public String getCategoryKey() {
+        return categoryKey;
+    }
+
+    public Long getMinPrice() {
+        return minPrice;
+    }
+
+    public Long getMaxPrice() {
+        return maxPrice;
+    }
+
+    public boolean isInStockOnly() {
+        return inStockOnly;
+    }
+
+    /**
+     * Evalúa el filtro sobre un producto (para implementaciones sin índice)
+     */
+    public boolean matches(Product product) {
+        return (categoryKey == null || categoryKey.equals(Product.categoryKey(product.getCategory())))
+                && (minPrice == null || product.getPrice() >= minPrice)
+                && (maxPrice == null || product.getPrice() <= maxPrice)
+                && (!inStockOnly || (product.getStock() != null && product.getStock() > 0));
+    }
+}
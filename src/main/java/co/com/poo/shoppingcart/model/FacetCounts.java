@@ -0,0 +1,96 @@
+package co.com.poo.shoppingcart.model;
+
+import java.util.List;
+
+/**
+ * Conteos de facetas del catálogo para un filtro: total de productos, cuántos
+ * tienen stock, cuántos hay por categoría y el histograma de precios.
+ */
+public class FacetCounts {
+
+    /**
+     * Cantidad de productos de una categoría
+     */
+    public static class CategoryCount {
+        private final String category;
+        private final int count;
+
+        public CategoryCount(String category, int count) {
+            this.category = category;
+            this.count = count;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Cantidad de productos con precio en [minPrice, maxPrice)
+     */
+    public static class PriceBucket {
+        private final long minPrice;
+        private final Long maxPrice; // null en el último tramo (sin límite)
+        private final int count;
+
+        public PriceBucket(long minPrice, Long maxPrice, int count) {
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.count = count;
+        }
+
+        public long getMinPrice() {
+            return minPrice;
+        }
+
+        public Long getMaxPrice() {
+            return maxPrice;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private final int total;
+    private final int inStock;
+    private final List<CategoryCount> categories;
+    private final List<PriceBucket> priceBuckets;
+
+    public FacetCounts(int total, int inStock, List<CategoryCount> categories, List<PriceBucket> priceBuckets) {
+        this.total = total;
+        this.inStock = inStock;
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+    }
+
+    public static FacetCounts empty() {
+        return new FacetCounts(0, 0, List.of(), List.of());
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getInStock() {
+        return inStock;
+    }
+
+    /**
+     * @return Categorías con al menos un producto, de la más numerosa a la menos
+     */
+    public List<CategoryCount> getCategories() {
+        return categories;
+    }
+
+    /**
+     * @return Tramos de precio con al menos un producto, de menor a mayor precio
+     */
+    public List<PriceBucket> getPriceBuckets() {
+        return priceBuckets;
+    }
+}
@@ -0,0 +1,86 @@
+package co.com.poo.shoppingcart.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Operaciones sobre montos de dinero representados como long en unidades
+ * mínimas (centavos de peso).
+ *
+ * Todo el dominio (productos, carrito y órdenes) trabaja con long para no
+ * crear objetos en cada operación ni acumular errores de redondeo de double.
+ * BigDecimal solo se usa en los bordes: base de datos (DECIMAL) y JSON.
+ *
+ * Regla de redondeo: HALF_UP a 2 decimales (0.005 -> 0.01).
+ */
+public final class Money {
+
+    /** Decimales de la moneda */
+    public static final int SCALE = 2;
+
+    /** Unidades mínimas por cada peso */
+    public static final long ONE = 100;
+
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+    private static final long BASIS_POINTS = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * @param pesos Monto en pesos enteros
+     * @return El monto en unidades mínimas
+     */
+    public static long of(long pesos) {
+        return Math.multiplyExact(pesos, ONE);
+    }
+
+    /**
+     * Convierte un decimal (por ejemplo, una columna DECIMAL o un valor JSON) a unidades mínimas
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, ROUNDING).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convierte unidades mínimas a decimal con 2 decimales
+     */
+    public static BigDecimal toDecimal(long amount) {
+        return BigDecimal.valueOf(amount, SCALE);
+    }
+
+    /**
+     * Lee un monto escrito como texto ("2800000" o "45000.50")
+     */
+    public static long parse(String text) {
+        return fromDecimal(new BigDecimal(text.trim()));
+    }
+
+    /**
+     * Precio unitario por cantidad; falla si el resultado no cabe en un long
+     */
+    public static long times(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    /**
+     * Calcula un porcentaje expresado en puntos básicos (500 = 5%), con redondeo HALF_UP
+     */
+    public static long percentage(long amount, int basisPoints) {
+        long product = Math.multiplyExact(amount, basisPoints);
+        long result = product / BASIS_POINTS;
+        long remainder = Math.abs(product % BASIS_POINTS);
+        if (remainder * 2 >= BASIS_POINTS) {
+            result += Long.signum(product);
+        }
+        return result;
+    }
+
+    /**
+     * Texto para mostrar en consola (por ejemplo, "45000.00")
+     */
+    public static String format(long amount) {
+        return toDecimal(amount).toPlainString();
+    }
+}
@@ -8,11 +8,12 @@ public class Order {
     private String orderId;
     private Date date;
     private List<CartItem> items;
-    private Double subtotal;
-    private Double discount;
-    private Double finalTotal;
+    // Montos en unidades mínimas (ver Money)
+    private long subtotal;
+    private long discount;
+    private long finalTotal;
 
-    public Order(List<CartItem> items, Double subtotal, Double discount) {
+    public Order(List<CartItem> items, long subtotal, long discount) {
         this.orderId = generateOrderId();
         this.date = new Date();
         this.items = items;
@@ -37,15 +38,15 @@ public class Order {
         return items;
     }
 
-    public Double getSubtotal() {
+    public long getSubtotal() {
         return subtotal;
     }
 
-    public Double getDiscount() {
+    public long getDiscount() {
         return discount;
     }
 
-    public Double getFinalTotal() {
+    public long getFinalTotal() {
         return finalTotal;
     }
 
@@ -55,9 +56,9 @@ public class Order {
                 "orderId='" + orderId + '\'' +
                 ", date=" + date +
                 ", items=" + items +
-                ", subtotal=" + subtotal +
-                ", discount=" + discount +
-                ", finalTotal=" + finalTotal +
+                ", subtotal=" + Money.format(subtotal) +
+                ", discount=" + Money.format(discount) +
+                ", finalTotal=" + Money.format(finalTotal) +
                 '}';
     }
 }
@@ -1,14 +1,16 @@
 package co.com.poo.shoppingcart.model;
 
+import java.util.Locale;
+
 public class Product {
 
     private final Integer id;
     private final String name;
     private final String category;
-    private final Double price;
+    private final long price; // en unidades mínimas (ver Money)
     private Integer stock; // Nuevo atributo para manejar el stock
 
-    public Product(Integer id, String name, String category, Double price) {
+    public Product(Integer id, String name, String category, long price) {
         this.id = id;
         this.name = name;
         this.category = category;
@@ -19,7 +21,7 @@ public class Product {
     /**
      * Constructor completo que incluye el stock inicial
      */
-    public Product(Integer id, String name, String category, Double price, Integer stock) {
+    public Product(Integer id, String name, String category, long price, Integer stock) {
         this.id = id;
         this.name = name;
         this.category = category;
@@ -39,7 +41,10 @@ public class Product {
         return category;
     }
 
-    public Double getPrice() {
+    /**
+     * @return El precio en unidades mínimas (centavos)
+     */
+    public long getPrice() {
         return price;
     }
     
@@ -59,13 +64,22 @@ public class Product {
         this.stock = stock;
     }
 
+    /**
+     * Normaliza una categoría para compararla: sin espacios a los lados y en minúsculas.
+     * Dos categorías son la misma si sus llaves son iguales.
+     * @return La llave de la categoría, o null si la categoría es null
+     */
+    public static String categoryKey(String category) {
+        return category == null ? null : category.trim().toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public String toString() {
         return "Product{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", category='" + category + '\'' +
-                ", price=" + price +
+                ", price=" + Money.format(price) +
                 ", stock=" + stock +
                 '}';
     }
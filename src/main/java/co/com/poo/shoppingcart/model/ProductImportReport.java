@@ -0,0 +1,62 @@
+package co.com.poo.shoppingcart.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de productos: filas guardadas, filas
+ * con error y el detalle de los errores (hasta MAX_ERRORS, para no devolver
+ * millones de mensajes si el archivo completo está mal).
+ */
+public class ProductImportReport {
+
+    public static final int MAX_ERRORS = 1000;
+
+    /**
+     * Error de una fila del archivo
+     */
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private long imported;
+    private long failed;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public void addImported(long rows) {
+        imported += rows;
+    }
+
+    public void addError(long line, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+}
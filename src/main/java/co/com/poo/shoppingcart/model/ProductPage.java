@@ -0,0 +1,25 @@
+package co.com.poo.shoppingcart.model;
+
+import java.util.List;
+
+/**
+ * Una página de productos y el cursor para pedir la siguiente
+ */
+public class ProductPage {
+
+    private final List<Product> items;
+    private final String nextCursor; // null si es la última página
+
+    public ProductPage(List<Product> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Product> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
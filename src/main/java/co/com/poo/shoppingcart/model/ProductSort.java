@@ -0,0 +1,23 @@
+package co.com.poo.shoppingcart.model;
+
+import java.util.Locale;
+
+/**
+ * Orden de los listados paginados de productos.
+ * Los empates se deshacen siempre por ID, así cada producto tiene una posición única.
+ */
+public enum ProductSort {
+    ID, PRICE, NAME;
+
+    /**
+     * @param value Nombre del orden (id, price o name, sin distinguir mayúsculas)
+     * @throws IllegalArgumentException si el orden no existe
+     */
+    public static ProductSort from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Orden no soportado: " + value + " (use id, price o name)");
+        }
+    }
+}
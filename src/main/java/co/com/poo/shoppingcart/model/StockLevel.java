@@ -0,0 +1,37 @@
+package co.com.poo.shoppingcart.model;
+
+/**
+ * Stock exacto de un producto en un instante: unidades que aún se pueden
+ * reservar, unidades reservadas por carritos y en cuántas franjas está
+ * repartido el contador (más de 1 en los productos muy concurridos).
+ */
+public class StockLevel {
+
+    private final int productId;
+    private final Integer available; // null si el producto no maneja stock
+    private final int reserved;
+    private final int stripes;
+
+    public StockLevel(int productId, Integer available, int reserved, int stripes) {
+        this.productId = productId;
+        this.available = available;
+        this.reserved = reserved;
+        this.stripes = stripes;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public Integer getAvailable() {
+        return available;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+}
@@ -1,7 +1,47 @@
 package co.com.poo.shoppingcart.repositories;
 
 import co.com.poo.shoppingcart.entities.CartEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<CartEntity, Long> {
+
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    Optional<CartEntity> findByCustomerId(String customerId);
+
+    /**
+     * Carga varios carritos con sus líneas y productos en una sola consulta
+     */
+    @EntityGraph(attributePaths = {"items", "items.product"})
+    List<CartEntity> findByCustomerIdIn(Collection<String> customerIds);
+
+    /**
+     * Clientes cuyos carritos no se modifican desde antes de la fecha indicada
+     */
+    @Query("select c.customerId from CartEntity c where c.updatedAt < :cutoff")
+    List<String> findIdleCustomerIds(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    /**
+     * Borra en bloque las líneas de los carritos indicados (un solo DELETE)
+     */
+    @Modifying
+    @Query("delete from CartItemEntity i where i.cart.id in " +
+            "(select c.id from CartEntity c where c.customerId in :customerIds)")
+    int deleteItemsByCustomerIds(@Param("customerIds") Collection<String> customerIds);
+
+    /**
+     * Borra en bloque los carritos indicados (un solo DELETE)
+     */
+    @Modifying
+    @Query("delete from CartEntity c where c.customerId in :customerIds")
+    int deleteByCustomerIds(@Param("customerIds") Collection<String> customerIds);
 }
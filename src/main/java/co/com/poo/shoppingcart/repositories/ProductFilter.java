@@ -0,0 +1,83 @@
+package co.com.poo.shoppingcart.repositories;
+
+import java.math.BigDecimal;
+
+/**
+ * Filtro de los listados paginados de productos: todo el catálogo, una
+ * categoría (llave normalizada), un rango de precios o una combinación de
+ * categoría, precios, stock disponible y prefijo del nombre (ver query).
+ */
+public class ProductFilter {
+
+    private final String categoryKey;
+    private final BigDecimal minPrice;
+    private final boolean minInclusive;
+    private final BigDecimal maxPrice;
+    private final boolean inStockOnly;
+    private final String namePrefix;
+
+    private ProductFilter(String categoryKey, BigDecimal minPrice, boolean minInclusive, BigDecimal maxPrice,
+                          boolean inStockOnly, String namePrefix) {
+        this.categoryKey = categoryKey;
+        this.minPrice = minPrice;
+        this.minInclusive = minInclusive;
+        this.maxPrice = maxPrice;
+        this.inStockOnly = inStockOnly;
+        this.namePrefix = namePrefix;
+    }
+
+    public static ProductFilter all() {
+        return new ProductFilter(null, null, true, null, false, null);
+    }
+
+    public static ProductFilter category(String categoryKey) {
+        return new ProductFilter(categoryKey, null, true, null, false, null);
+    }
+
+    public static ProductFilter priceGreaterThan(BigDecimal minPrice) {
+        return new ProductFilter(null, minPrice, false, null, false, null);
+    }
+
+    public static ProductFilter priceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return new ProductFilter(null, minPrice, true, maxPrice, false, null);
+    }
+
+    /**
+     * Filtro combinado; cualquier condición puede omitirse (null o false)
+     * @param categoryKey Categoría normalizada (ver Product.categoryKey), vacía = sin filtro
+     * @param minPrice Precio mínimo (inclusive)
+     * @param maxPrice Precio máximo (inclusive)
+     * @param inStockOnly Solo productos con stock mayor a 0
+     * @param namePrefix Comienzo del nombre (vacío = sin filtro)
+     */
+    public static ProductFilter query(String categoryKey, BigDecimal minPrice, BigDecimal maxPrice,
+                                      boolean inStockOnly, String namePrefix) {
+        String category = categoryKey == null || categoryKey.isEmpty() ? null : categoryKey;
+        String prefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+        return new ProductFilter(category, minPrice, true, maxPrice, inStockOnly, prefix);
+    }
+
+    public String getCategoryKey() {
+        return categoryKey;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public boolean isMinInclusive() {
+        return minInclusive;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public boolean isInStockOnly() {
+        return inStockOnly;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+}
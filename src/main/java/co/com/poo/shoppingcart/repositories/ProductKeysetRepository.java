@@ -0,0 +1,22 @@
+package co.com.poo.shoppingcart.repositories;
+
+import co.com.poo.shoppingcart.model.ProductSort;
+import co.com.poo.shoppingcart.services.ProductCursor;
+
+import java.util.List;
+
+/**
+ * Consultas paginadas por llave (keyset) sobre productos.
+ * Se implementa en ProductKeysetRepositoryImpl y se agrega a ProductRepository.
+ */
+public interface ProductKeysetRepository {
+
+    /**
+     * Trae una página de productos (solo las columnas de ProductRow) ordenada por la llave indicada (y luego por ID)
+     * @param filter Filtro del listado
+     * @param sort Orden
+     * @param after Cursor del último producto de la página anterior (null = primera página)
+     * @param limit Cantidad máxima de filas a traer
+     */
+    List<ProductRow> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit);
+}
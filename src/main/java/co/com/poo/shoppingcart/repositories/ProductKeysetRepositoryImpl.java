@@ -0,0 +1,110 @@
+package co.com.poo.shoppingcart.repositories;
+
+import co.com.poo.shoppingcart.entities.ProductEntity;
+import co.com.poo.shoppingcart.model.ProductSort;
+import co.com.poo.shoppingcart.services.ProductCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Paginación por llave con Criteria API: en vez de OFFSET se filtra por
+ * "(llave, id) > (última llave, último id)" y se ordena por (llave, id), así
+ * la base de datos recorre solo la página pedida usando los índices
+ * (category_key, id), (category_key, price, id), (price, id) y (name, id)
+ * de la tabla products.
+ *
+ * Todas las condiciones del filtro van en el WHERE y se seleccionan solo las
+ * columnas de ProductRow (proyección), sin crear entidades administradas.
+ * El prefijo del nombre se resuelve con LIKE 'prefijo%', que usa el índice
+ * (name, id).
+ */
+public class ProductKeysetRepositoryImpl implements ProductKeysetRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductRow> findPage(ProductFilter filter, ProductSort sort, ProductCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductRow> query = cb.createQuery(ProductRow.class);
+        Root<ProductEntity> product = query.from(ProductEntity.class);
+        Path<Long> id = product.get("id");
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter.getCategoryKey() != null) {
+            where.add(cb.equal(product.get("categoryKey"), filter.getCategoryKey()));
+        }
+        if (filter.getMinPrice() != null) {
+            where.add(filter.isMinInclusive()
+                    ? cb.greaterThanOrEqualTo(product.get("price"), filter.getMinPrice())
+                    : cb.greaterThan(product.get("price"), filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null) {
+            where.add(cb.lessThanOrEqualTo(product.get("price"), filter.getMaxPrice()));
+        }
+        if (filter.isInStockOnly()) {
+            where.add(cb.greaterThan(product.get("stock"), 0));
+        }
+        if (filter.getNamePrefix() != null) {
+            where.add(cb.like(product.get("name"), escapeLike(filter.getNamePrefix()) + "%", LIKE_ESCAPE));
+        }
+
+        switch (sort) {
+            case ID -> {
+                if (after != null) {
+                    where.add(cb.greaterThan(id, after.getLastId()));
+                }
+                query.orderBy(cb.asc(id));
+            }
+            case PRICE -> {
+                Path<BigDecimal> price = product.get("price");
+                if (after != null) {
+                    where.add(cb.or(
+                            cb.greaterThan(price, after.getLastPrice()),
+                            cb.and(cb.equal(price, after.getLastPrice()), cb.greaterThan(id, after.getLastId()))));
+                }
+                query.orderBy(cb.asc(price), cb.asc(id));
+            }
+            case NAME -> {
+                Path<String> name = product.get("name");
+                if (after != null) {
+                    where.add(cb.or(
+                            cb.greaterThan(name, after.getLastName()),
+                            cb.and(cb.equal(name, after.getLastName()), cb.greaterThan(id, after.getLastId()))));
+                }
+                query.orderBy(cb.asc(name), cb.asc(id));
+            }
+        }
+
+        query.select(cb.construct(ProductRow.class,
+                        id, product.get("name"), product.get("description"), product.get("price"), product.get("stock")))
+                .where(where.toArray(new Predicate[0]));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Escapa los comodines de LIKE para que el prefijo se compare literal
+     */
+    private static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) escaped.append(LIKE_ESCAPE);
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
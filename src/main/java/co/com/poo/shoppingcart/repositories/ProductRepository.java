@@ -1,7 +1,36 @@
 package co.com.poo.shoppingcart.repositories;
 
 import co.com.poo.shoppingcart.entities.ProductEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface ProductRepository extends JpaRepository<ProductEntity, Long> {
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<ProductEntity, Long>, ProductKeysetRepository {
+
+    /** Filas que trae el driver por viaje al recorrer el catálogo con streamAll */
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Recorre todo el catálogo en orden de ID con un cursor de solo avance.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new co.com.poo.shoppingcart.repositories.ProductRow(p.id, p.name, p.description, p.price, p.stock) " +
+            "from ProductEntity p order by p.id")
+    Stream<ProductRow> streamAll();
+
+    /** Productos de una categoría normalizada, por ID (índice (category_key, id)) */
+    List<ProductEntity> findByCategoryKeyOrderByIdAsc(String categoryKey);
+
+    /** Productos con precio en [min, max], por precio e ID (índice (price, id)) */
+    List<ProductEntity> findByPriceBetweenOrderByPriceAscIdAsc(BigDecimal min, BigDecimal max);
 }
@@ -0,0 +1,30 @@
+package co.com.poo.shoppingcart.repositories;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila de producto leída con una proyección (no es una entidad administrada),
+ * para recorrer el catálogo completo sin llenar el contexto de persistencia.
+ */
+public class ProductRow {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final Integer stock;
+
+    public ProductRow(Long id, String name, String description, BigDecimal price, Integer stock) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.stock = stock;
+    }
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public BigDecimal getPrice() { return price; }
+    public Integer getStock() { return stock; }
+}
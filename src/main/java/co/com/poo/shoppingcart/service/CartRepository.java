@@ -17,4 +17,23 @@ public interface CartRepository {
      */
     Cart getCart();
 
+    /**
+     * Guarda el carrito de un cliente específico.
+     * Las implementaciones de un solo carrito ignoran el cliente.
+     * @param customerId ID del cliente dueño del carrito.
+     * @param cart El carrito de compras a guardar.
+     */
+    default void saveCart(String customerId, Cart cart) {
+        saveCart(cart);
+    }
+
+    /**
+     *
+     * @param customerId ID del cliente dueño del carrito.
+     * @return El carrito de compras del cliente.
+     */
+    default Cart getCart(String customerId) {
+        return getCart();
+    }
+
 }
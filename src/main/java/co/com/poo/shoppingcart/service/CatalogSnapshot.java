@@ -0,0 +1,54 @@
+package co.com.poo.shoppingcart.service;
+
+/**
+ * Formato binario del catálogo (versión 1). Todos los números van en big endian.
+ *
+ * Encabezado de HEADER_SIZE bytes:
+ *   0  int  MAGIC
+ *   4  int  FORMAT_VERSION
+ *   8  int  cantidad de productos (n)
+ *  12  int  cantidad de strings (s)
+ *  16  int  posiciones del índice de IDs (c, potencia de 2)
+ *  20  int  reservado
+ *  24  long bytes de la tabla de strings
+ *  32  long fecha de creación (epoch millis)
+ *
+ * Secciones, en este orden y sin relleno:
+ *   long[n]   precios (unidades mínimas, ver Money)
+ *   int[n]    stock (NO_STOCK si no tiene)
+ *   int[n]    IDs
+ *   int[n]    nombre (posición en la tabla de strings)
+ *   int[n]    categoría (posición en la tabla de strings, NO_STRING si no tiene)
+ *   int[2c]   índice de IDs: pares (ID, posición + 1), 0 = libre, sondeo lineal
+ *   int[s+1]  inicio de cada string dentro de los bytes de la tabla
+ *   byte[]    strings en UTF-8
+ */
+final class CatalogSnapshot {
+
+    static final int MAGIC = 0x43415431; // "CAT1"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    static final int NO_STOCK = -1;
+    static final int NO_STRING = -1;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Posiciones del índice para n productos: el doble, redondeado a potencia de 2
+     */
+    static int indexCapacity(int count) {
+        int capacity = 2;
+        while (capacity < count * 2L) capacity <<= 1;
+        return capacity;
+    }
+
+    /**
+     * Primera posición a revisar para un ID (debe ser igual al escribir y al leer)
+     */
+    static int slot(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,161 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.util.IntIntHashMap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Genera un snapshot binario del catálogo (formato en CatalogSnapshot) que
+ * SnapshotProductManager puede mapear y usar sin parsear nada.
+ *
+ * Los productos se agregan uno a uno y se guardan en columnas de primitivos;
+ * los nombres y categorías repetidos se guardan una sola vez.
+ *
+ * Desde la línea de comandos convierte un archivo de texto como products.txt:
+ *   java ... CatalogSnapshotWriter products.txt catalogo.snap
+ */
+public class CatalogSnapshotWriter {
+
+    private long[] prices = new long[1024];
+    private int[] stocks = new int[1024];
+    private int[] ids = new int[1024];
+    private int[] nameRefs = new int[1024];
+    private int[] categoryRefs = new int[1024];
+    private int count;
+
+    private final IntIntHashMap seenIds = new IntIntHashMap();
+    private final Map<String, Integer> stringRefs = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private long stringBytes;
+
+    /**
+     * Agrega un producto al snapshot
+     * @throws IllegalArgumentException si el ID ya se agregó
+     */
+    public void add(Product product) {
+        int id = product.getId();
+        if (seenIds.put(id, count) != IntIntHashMap.NO_VALUE) {
+            throw new IllegalArgumentException("ID duplicado en el snapshot: " + id);
+        }
+        if (count == ids.length) {
+            int capacity = count * 2;
+            prices = Arrays.copyOf(prices, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            nameRefs = Arrays.copyOf(nameRefs, capacity);
+            categoryRefs = Arrays.copyOf(categoryRefs, capacity);
+        }
+        prices[count] = product.getPrice();
+        stocks[count] = product.getStock() == null ? CatalogSnapshot.NO_STOCK : product.getStock();
+        ids[count] = id;
+        nameRefs[count] = stringRef(product.getName() == null ? "" : product.getName());
+        categoryRefs[count] = product.getCategory() == null ? CatalogSnapshot.NO_STRING : stringRef(product.getCategory());
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Escribe el snapshot en un archivo temporal y luego lo mueve al destino,
+     * así quien lo lea nunca ve un archivo a medio escribir
+     */
+    public void writeTo(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path tmp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                writeTo(out);
+            }
+            Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Escribe el snapshot completo en el stream (no lo cierra)
+     */
+    public void writeTo(OutputStream target) throws IOException {
+        int capacity = CatalogSnapshot.indexCapacity(count);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+
+        out.writeInt(CatalogSnapshot.MAGIC);
+        out.writeInt(CatalogSnapshot.FORMAT_VERSION);
+        out.writeInt(count);
+        out.writeInt(strings.size());
+        out.writeInt(capacity);
+        out.writeInt(0);
+        out.writeLong(stringBytes);
+        out.writeLong(System.currentTimeMillis());
+        out.write(new byte[CatalogSnapshot.HEADER_SIZE - out.size()]);
+
+        for (int i = 0; i < count; i++) out.writeLong(prices[i]);
+        for (int i = 0; i < count; i++) out.writeInt(stocks[i]);
+        for (int i = 0; i < count; i++) out.writeInt(ids[i]);
+        for (int i = 0; i < count; i++) out.writeInt(nameRefs[i]);
+        for (int i = 0; i < count; i++) out.writeInt(categoryRefs[i]);
+
+        int[] index = new int[capacity * 2];
+        int mask = capacity - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = CatalogSnapshot.slot(ids[i], mask);
+            while (index[slot * 2 + 1] != 0) slot = (slot + 1) & mask;
+            index[slot * 2] = ids[i];
+            index[slot * 2 + 1] = i + 1;
+        }
+        for (int value : index) out.writeInt(value);
+
+        int offset = 0;
+        for (byte[] string : strings) {
+            out.writeInt(offset);
+            offset += string.length;
+        }
+        out.writeInt(offset);
+        for (byte[] string : strings) out.write(string);
+        out.flush();
+    }
+
+    private int stringRef(String value) {
+        Integer ref = stringRefs.get(value);
+        if (ref != null) return ref;
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (stringBytes + bytes.length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("La tabla de strings supera 2 GB");
+        }
+        stringBytes += bytes.length;
+        strings.add(bytes);
+        stringRefs.put(value, strings.size() - 1);
+        return strings.size() - 1;
+    }
+
+    /**
+     * Convierte un catálogo de texto (ID|Titulo|Categoria|Precio) en snapshot
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: CatalogSnapshotWriter <products.txt> <salida>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        CatalogSnapshotWriter writer = new CatalogSnapshotWriter();
+        FileProductManager.readFile(Path.of(args[0])).forEach(writer::add);
+        writer.writeTo(Path.of(args[1]));
+        System.out.println("Snapshot con " + writer.size() + " productos escrito en " + args[1]
+                + " (" + (System.nanoTime() - start) / 1_000_000 + " ms)");
+    }
+}
@@ -0,0 +1,382 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Catálogo en columnas (struct of arrays) para filtros combinados.
+ *
+ * Cada producto es una fila. El precio y el stock viven en arreglos de
+ * primitivos agrupados en segmentos ordenados por (precio, fila): uno con todo
+ * el catálogo y uno por categoría (la categoría se codifica con un
+ * diccionario). Un filtro elige el segmento (el de su categoría o el general),
+ * ubica su rango de precios con búsqueda binaria y recorre ese tramo contiguo
+ * comprobando el stock, sin tocar los objetos Product; solo las filas que
+ * coinciden se convierten en resultado. Los resultados salen ordenados por precio.
+ *
+ * Las escrituras modifican los segmentos en su lugar bajo un lock de
+ * lectura/escritura, igual que ProductSearchIndex. Una fila eliminada deja un
+ * hueco y las filas se renumeran (reconstruyendo todo) cuando los huecos
+ * superan a las filas vigentes.
+ */
+public class ColumnarCatalog {
+
+    private static final int DELETED = -1;
+    private static final int MIN_COMPACT_ROWS = 1024;
+
+    /**
+     * Filas ordenadas por (precio, fila), con su precio y stock en arreglos paralelos
+     */
+    private static final class Segment {
+        int[] rows;
+        long[] prices;
+        int[] stocks;
+        int size;
+
+        Segment(int capacity) {
+            rows = new int[capacity];
+            prices = new long[capacity];
+            stocks = new int[capacity];
+        }
+
+        /**
+         * Primera posición cuyo (precio, fila) es mayor o igual al indicado
+         */
+        int position(long price, int row) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price || (prices[mid] == price && rows[mid] < row)) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        void insert(int row, long price, int stock) {
+            if (size == rows.length) {
+                int capacity = Math.max(4, size * 2);
+                rows = Arrays.copyOf(rows, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                stocks = Arrays.copyOf(stocks, capacity);
+            }
+            int pos = position(price, row);
+            System.arraycopy(rows, pos, rows, pos + 1, size - pos);
+            System.arraycopy(prices, pos, prices, pos + 1, size - pos);
+            System.arraycopy(stocks, pos, stocks, pos + 1, size - pos);
+            rows[pos] = row;
+            prices[pos] = price;
+            stocks[pos] = stock;
+            size++;
+        }
+
+        void remove(int row, long price) {
+            int pos = position(price, row);
+            if (pos == size || rows[pos] != row) return;
+            System.arraycopy(rows, pos + 1, rows, pos, size - pos - 1);
+            System.arraycopy(prices, pos + 1, prices, pos, size - pos - 1);
+            System.arraycopy(stocks, pos + 1, stocks, pos, size - pos - 1);
+            size--;
+        }
+
+        void setStock(int row, long price, int stock) {
+            int pos = position(price, row);
+            if (pos < size && rows[pos] == row) stocks[pos] = stock;
+        }
+    }
+
+    // Por fila: producto, precio actual (para ubicarla en los segmentos) y código de categoría
+    private Product[] products;
+    private long[] prices;
+    private int[] codes;
+    private int rows;      // filas usadas, incluidos los huecos
+    private int deleted;
+
+    private final IntIntHashMap rowById = new IntIntHashMap();
+
+    private Segment all = new Segment(16);
+
+    // Diccionario de categorías (llave normalizada -> código) y segmento de cada código
+    private final Map<String, Integer> codeByKey = new HashMap<>();
+    private Segment[] byCategory = new Segment[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ColumnarCatalog() {
+        this(16);
+    }
+
+    private ColumnarCatalog(int capacity) {
+        products = new Product[capacity];
+        prices = new long[capacity];
+        codes = new int[capacity];
+    }
+
+    /**
+     * Construye el catálogo a partir de una lista de productos (sin IDs repetidos)
+     */
+    public static ColumnarCatalog of(List<Product> products) {
+        ColumnarCatalog catalog = new ColumnarCatalog(Math.max(16, products.size()));
+        for (Product product : products) {
+            catalog.appendRow(product);
+        }
+        catalog.buildSegments();
+        return catalog;
+    }
+
+    /**
+     * @return Los productos que cumplen el filtro, ordenados por precio
+     */
+    public List<Product> filter(CatalogFilter filter) {
+        lock.readLock().lock();
+        try {
+            int[] matches = scan(filter, false);
+            int count = matches[matches.length - 1];
+            List<Product> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(products[matches[i]]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Cuántos productos cumplen el filtro
+     */
+    public int count(CatalogFilter filter) {
+        lock.readLock().lock();
+        try {
+            int[] matches = scan(filter, true);
+            return matches[matches.length - 1];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega un producto nuevo o actualiza uno existente (por ID)
+     */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.get(product.getId());
+            if (row == IntIntHashMap.NO_VALUE) {
+                row = appendRow(product);
+                all.insert(row, prices[row], stockOf(product));
+                byCategory[codes[row]].insert(row, prices[row], stockOf(product));
+                return;
+            }
+            int code = codeOf(Product.categoryKey(product.getCategory()));
+            long price = product.getPrice();
+            int stock = stockOf(product);
+            if (price != prices[row] || code != codes[row]) {
+                all.remove(row, prices[row]);
+                byCategory[codes[row]].remove(row, prices[row]);
+                prices[row] = price;
+                codes[row] = code;
+                all.insert(row, price, stock);
+                byCategory[code].insert(row, price, stock);
+            } else {
+                all.setStock(row, price, stock);
+                byCategory[code].setStock(row, price, stock);
+            }
+            products[row] = product;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.remove(id);
+            if (row == IntIntHashMap.NO_VALUE) return;
+            all.remove(row, prices[row]);
+            byCategory[codes[row]].remove(row, prices[row]);
+            codes[row] = DELETED;
+            products[row] = null;
+            deleted++;
+            if (deleted > MIN_COMPACT_ROWS && deleted > rows - deleted) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============ FILTRO ============
+
+    /**
+     * Filas que cumplen el filtro, en orden de precio. Para no recorrer dos
+     * veces, el arreglo devuelto tiene una posición extra al final con la
+     * cantidad de filas; con countOnly solo trae esa posición.
+     */
+    private int[] scan(CatalogFilter filter, boolean countOnly) {
+        long min = filter.getMinPrice() == null ? Long.MIN_VALUE : filter.getMinPrice();
+        long max = filter.getMaxPrice() == null ? Long.MAX_VALUE : filter.getMaxPrice();
+        if (min > max) return new int[1];
+
+        Segment segment = all;
+        if (filter.getCategoryKey() != null) {
+            Integer code = codeByKey.get(filter.getCategoryKey());
+            if (code == null) return new int[1];
+            segment = byCategory[code];
+        }
+        int from = segment.position(min, Integer.MIN_VALUE);
+        int to = max == Long.MAX_VALUE ? segment.size : segment.position(max + 1, Integer.MIN_VALUE);
+
+        if (!filter.isInStockOnly()) {
+            int count = Math.max(0, to - from);
+            int[] out = new int[countOnly ? 1 : count + 1];
+            if (!countOnly) System.arraycopy(segment.rows, from, out, 0, count);
+            out[out.length - 1] = count;
+            return out;
+        }
+
+        int[] rows = segment.rows;
+        int[] stocks = segment.stocks;
+        int[] out = new int[countOnly ? 1 : Math.max(0, to - from) + 1];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            // Sin salto por condición: se escribe siempre y solo avanza si hay stock
+            if (!countOnly) out[count] = rows[i];
+            count += stocks[i] > 0 ? 1 : 0;
+        }
+        out[out.length - 1] = count;
+        return out;
+    }
+
+    // ============ ESCRITURA ============
+
+    /**
+     * Agrega la fila sin ubicarla en los segmentos
+     */
+    private int appendRow(Product product) {
+        if (rows == products.length) {
+            int capacity = rows * 2;
+            products = Arrays.copyOf(products, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+        }
+        int row = rows++;
+        products[row] = product;
+        prices[row] = product.getPrice();
+        codes[row] = codeOf(Product.categoryKey(product.getCategory()));
+        rowById.put(product.getId(), row);
+        return row;
+    }
+
+    private int codeOf(String key) {
+        Integer code = codeByKey.get(key);
+        if (code != null) return code;
+        int next = byCategory.length;
+        codeByKey.put(key, next);
+        byCategory = Arrays.copyOf(byCategory, next + 1);
+        byCategory[next] = new Segment(4);
+        return next;
+    }
+
+    /**
+     * Arma todos los segmentos de una vez: ordena las filas vigentes por
+     * precio y las reparte por categoría conservando ese orden
+     */
+    private void buildSegments() {
+        int[] order = new int[rows - deleted];
+        int n = 0;
+        for (int row = 0; row < rows; row++) {
+            if (codes[row] != DELETED) order[n++] = row;
+        }
+        sortByPrice(order, prices);
+
+        int[] categorySizes = new int[byCategory.length];
+        for (int row : order) categorySizes[codes[row]]++;
+        for (int code = 0; code < byCategory.length; code++) {
+            byCategory[code] = new Segment(Math.max(4, categorySizes[code]));
+        }
+        all = new Segment(Math.max(16, n));
+        for (int row : order) {
+            int stock = stockOf(products[row]);
+            append(all, row, prices[row], stock);
+            append(byCategory[codes[row]], row, prices[row], stock);
+        }
+    }
+
+    private static void append(Segment segment, int row, long price, int stock) {
+        segment.rows[segment.size] = row;
+        segment.prices[segment.size] = price;
+        segment.stocks[segment.size] = stock;
+        segment.size++;
+    }
+
+    /**
+     * Ordena filas por (precio, fila) con merge sort sobre primitivos; las filas
+     * llegan en orden ascendente y el orden es estable
+     */
+    private static void sortByPrice(int[] order, long[] prices) {
+        int n = order.length;
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n - width; low += 2 * width) {
+                int mid = low + width;
+                int high = Math.min(low + 2 * width, n);
+                if (prices[order[mid - 1]] <= prices[order[mid]]) continue; // ya están en orden
+                int i = low;
+                int j = mid;
+                int k = low;
+                while (i < mid && j < high) {
+                    buffer[k++] = prices[order[j]] < prices[order[i]] ? order[j++] : order[i++];
+                }
+                while (i < mid) buffer[k++] = order[i++];
+                while (j < high) buffer[k++] = order[j++];
+                System.arraycopy(buffer, low, order, low, high - low);
+            }
+        }
+    }
+
+    /**
+     * Renumera las filas vigentes (sin huecos) y rearma los segmentos
+     */
+    private void compact() {
+        List<Product> live = new ArrayList<>(rows - deleted);
+        for (int row = 0; row < rows; row++) {
+            if (codes[row] != DELETED) live.add(products[row]);
+        }
+        ColumnarCatalog compacted = of(live);
+        products = compacted.products;
+        prices = compacted.prices;
+        codes = compacted.codes;
+        rows = compacted.rows;
+        deleted = 0;
+        rowById.clear();
+        for (int row = 0; row < rows; row++) {
+            rowById.put(products[row].getId(), row);
+        }
+        codeByKey.clear();
+        codeByKey.putAll(compacted.codeByKey);
+        byCategory = compacted.byCategory;
+        all = compacted.all;
+    }
+
+    private static int stockOf(Product product) {
+        return product.getStock() == null ? 0 : product.getStock();
+    }
+}
@@ -0,0 +1,433 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.FacetCounts;
+import co.com.poo.shoppingcart.model.Money;
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Conteos de facetas del catálogo: productos por categoría, por tramo de
+ * precio y con stock, para un filtro.
+ *
+ * Cada producto ocupa una fila (las de productos eliminados se reutilizan).
+ * Las filas vigentes y las que tienen stock son bitsets; cada categoría y cada
+ * tramo de precio es un RowSet (bitset, o lista de filas si tiene pocas). La
+ * cantidad de filas de cada conjunto se mantiene en cada escritura, así las
+ * facetas sin filtro no recorren nada; con filtro, las combinaciones salen de
+ * AND entre bitsets (64 filas por operación) y conteo de bits, sin volver a
+ * consultar los productos.
+ *
+ * Como es usual en facetas, cada dimensión ignora su propio filtro: los
+ * conteos por categoría aplican precio y stock, y el histograma aplica
+ * categoría y stock, para mostrar las alternativas de cada una.
+ *
+ * Los tramos de precio son fijos para poder mantenerlos en cada escritura:
+ * serie 1-2-5 en unidades de la moneda (0-1, 1-2, 2-5, 5-10, 10-20, ...).
+ */
+public class FacetIndex {
+
+    private static final int NO_CATEGORY = -1;
+    private static final long[] BOUNDS = priceBounds();
+
+    /**
+     * Conjunto de filas: bitset de todo el catálogo, o lista sin orden cuando
+     * tiene pocas filas (ocupa menos que el bitset)
+     */
+    private static final class RowSet {
+        long[] bits;      // modo bitset, o null
+        int[] rows = new int[4];
+        int size;
+
+        void add(int row, int words) {
+            size++;
+            if (bits != null) {
+                bits[row >>> 6] |= 1L << row;
+                return;
+            }
+            if (size > rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size - 1] = row;
+            // La lista ocupa 4 bytes por fila y el bitset 8 por cada 64 filas
+            if (size > 2 * words) {
+                bits = new long[words];
+                for (int i = 0; i < size; i++) bits[rows[i] >>> 6] |= 1L << rows[i];
+                rows = null;
+            }
+        }
+
+        void remove(int row, int words) {
+            size--;
+            if (bits == null) {
+                for (int i = 0; ; i++) {
+                    if (rows[i] == row) {
+                        rows[i] = rows[size];
+                        return;
+                    }
+                }
+            }
+            bits[row >>> 6] &= ~(1L << row);
+            if (size < words / 2) toRows();
+        }
+
+        /**
+         * Acompaña el crecimiento de la tabla; si el conjunto quedó con pocas
+         * filas para su tamaño, pasa a lista
+         */
+        void grow(int words) {
+            if (bits == null) return;
+            if (size < words / 2) toRows();
+            else bits = Arrays.copyOf(bits, words);
+        }
+
+        private void toRows() {
+            rows = new int[Math.max(4, size * 2)];
+            int n = 0;
+            for (int w = 0; w < bits.length; w++) {
+                for (long word = bits[w]; word != 0; word &= word - 1) {
+                    rows[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            bits = null;
+        }
+
+        /**
+         * Cuántas filas del conjunto están también en la máscara
+         */
+        int countIn(long[] mask) {
+            int count = 0;
+            if (bits != null) {
+                int n = Math.min(bits.length, mask.length);
+                for (int w = 0; w < n; w++) count += Long.bitCount(bits[w] & mask[w]);
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (contains(mask, rows[i])) count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * El conjunto como bitset (si es lista, una copia)
+         */
+        long[] toBits(int words) {
+            if (bits != null) return bits;
+            long[] out = new long[words];
+            for (int i = 0; i < size; i++) out[rows[i] >>> 6] |= 1L << rows[i];
+            return out;
+        }
+    }
+
+    // Columnas por fila
+    private long[] prices;
+    private int[] bucketIds;
+    private int[] codes;
+    private int words;
+
+    private long[] live;
+    private long[] inStock;
+    private int liveCount;
+    private int inStockCount;
+
+    private final IntIntHashMap rowById = new IntIntHashMap();
+    private int rows;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    private final RowSet[] buckets = new RowSet[BOUNDS.length];
+
+    // Diccionario de categorías (llave normalizada -> código), con el nombre a mostrar
+    private final Map<String, Integer> codeByKey = new HashMap<>();
+    private RowSet[] categories = new RowSet[0];
+    private String[] names = new String[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FacetIndex() {
+        this(64);
+    }
+
+    private FacetIndex(int capacity) {
+        words = (Math.max(64, capacity) + 63) >>> 6;
+        prices = new long[words << 6];
+        bucketIds = new int[words << 6];
+        codes = new int[words << 6];
+        live = new long[words];
+        inStock = new long[words];
+        for (int b = 0; b < buckets.length; b++) buckets[b] = new RowSet();
+    }
+
+    /**
+     * Construye el índice a partir de una lista de productos
+     */
+    public static FacetIndex of(List<Product> products) {
+        FacetIndex index = new FacetIndex(products.size());
+        for (Product product : products) {
+            index.put(product);
+        }
+        return index;
+    }
+
+    /**
+     * Calcula las facetas del filtro
+     */
+    public FacetCounts facets(CatalogFilter filter) {
+        lock.readLock().lock();
+        try {
+            RowSet category = null;
+            if (filter.getCategoryKey() != null) {
+                Integer code = codeByKey.get(filter.getCategoryKey());
+                category = code == null ? new RowSet() : categories[code];
+            }
+            long[] price = priceMask(filter.getMinPrice(), filter.getMaxPrice());
+            long[] stock = filter.isInStockOnly() ? inStock : null;
+            long[] categoryBits = category == null ? null : category.toBits(words);
+
+            // Máscaras de las otras dimensiones (null = sin filtro)
+            long[] priceAndStock = and(price, stock);
+            long[] categoryAndStock = and(categoryBits, stock);
+
+            int[] perCategory = countPerSet(categories, codes, priceAndStock);
+            List<FacetCounts.CategoryCount> categoryCounts = new ArrayList<>();
+            for (int code = 0; code < categories.length; code++) {
+                if (perCategory[code] > 0) categoryCounts.add(new FacetCounts.CategoryCount(names[code], perCategory[code]));
+            }
+            categoryCounts.sort(Comparator.comparingInt(FacetCounts.CategoryCount::getCount).reversed()
+                    .thenComparing(FacetCounts.CategoryCount::getCategory));
+
+            int[] perBucket = countPerSet(buckets, bucketIds, categoryAndStock);
+            List<FacetCounts.PriceBucket> priceBuckets = new ArrayList<>();
+            for (int b = 0; b < buckets.length; b++) {
+                if (perBucket[b] > 0) {
+                    Long upper = b + 1 < BOUNDS.length ? BOUNDS[b + 1] : null;
+                    priceBuckets.add(new FacetCounts.PriceBucket(BOUNDS[b], upper, perBucket[b]));
+                }
+            }
+
+            long[] matching = and(categoryAndStock, price);
+            int total = matching == null ? liveCount : cardinality(matching);
+            int available = categoryBits == null && price == null
+                    ? inStockCount
+                    : cardinality(and(and(categoryBits, price), inStock));
+            return new FacetCounts(total, available, categoryCounts, priceBuckets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega un producto nuevo o actualiza uno existente (por ID)
+     */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.get(product.getId());
+            if (row == IntIntHashMap.NO_VALUE) {
+                row = newRow();
+                rowById.put(product.getId(), row);
+            } else {
+                detach(row);
+            }
+            attach(row, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowById.remove(id);
+            if (row == IntIntHashMap.NO_VALUE) return;
+            detach(row);
+            if (freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            freeRows[freeCount++] = row;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============ FILAS ============
+
+    private int newRow() {
+        if (freeCount > 0) return freeRows[--freeCount];
+        if (rows == prices.length) {
+            int capacity = prices.length * 2;
+            words = capacity >>> 6;
+            prices = Arrays.copyOf(prices, capacity);
+            bucketIds = Arrays.copyOf(bucketIds, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            live = Arrays.copyOf(live, words);
+            inStock = Arrays.copyOf(inStock, words);
+            for (RowSet bucket : buckets) bucket.grow(words);
+            for (RowSet category : categories) category.grow(words);
+        }
+        return rows++;
+    }
+
+    private void attach(int row, Product product) {
+        long price = product.getPrice();
+        prices[row] = price;
+        bucketIds[row] = bucketOf(price);
+        buckets[bucketIds[row]].add(row, words);
+        int code = codeOf(product.getCategory());
+        codes[row] = code;
+        if (code != NO_CATEGORY) categories[code].add(row, words);
+        if (product.getStock() != null && product.getStock() > 0) {
+            inStock[row >>> 6] |= 1L << row;
+            inStockCount++;
+        }
+        live[row >>> 6] |= 1L << row;
+        liveCount++;
+    }
+
+    private void detach(int row) {
+        buckets[bucketIds[row]].remove(row, words);
+        if (codes[row] != NO_CATEGORY) categories[codes[row]].remove(row, words);
+        if (contains(inStock, row)) {
+            inStock[row >>> 6] &= ~(1L << row);
+            inStockCount--;
+        }
+        live[row >>> 6] &= ~(1L << row);
+        liveCount--;
+    }
+
+    private int codeOf(String category) {
+        String key = Product.categoryKey(category);
+        if (key == null) return NO_CATEGORY;
+        Integer code = codeByKey.get(key);
+        if (code != null) return code;
+        int next = categories.length;
+        codeByKey.put(key, next);
+        categories = Arrays.copyOf(categories, next + 1);
+        categories[next] = new RowSet();
+        names = Arrays.copyOf(names, next + 1);
+        names[next] = category.trim();
+        return next;
+    }
+
+    // ============ PRECIOS ============
+
+    private static long[] priceBounds() {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        for (long unit = Money.ONE; unit <= Long.MAX_VALUE / 10; unit *= 10) {
+            bounds.add(unit);
+            bounds.add(2 * unit);
+            bounds.add(5 * unit);
+        }
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * Tramo del precio (los precios negativos caen en el primero)
+     */
+    private static int bucketOf(long price) {
+        int index = Arrays.binarySearch(BOUNDS, price);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+
+    /**
+     * Filas con precio en [min, max]: los tramos cubiertos completos se suman
+     * con OR y solo las filas de los tramos de los extremos se comparan una a
+     * una. null si no hay filtro de precio.
+     */
+    private long[] priceMask(Long minPrice, Long maxPrice) {
+        if (minPrice == null && maxPrice == null) return null;
+        long min = minPrice == null ? Long.MIN_VALUE : minPrice;
+        long max = maxPrice == null ? Long.MAX_VALUE : maxPrice;
+        long[] mask = new long[words];
+        if (min > max) return mask;
+        int last = bucketOf(max);
+        for (int b = bucketOf(min); b <= last; b++) {
+            RowSet bucket = buckets[b];
+            if (bucket.size == 0) continue;
+            boolean full = min <= BOUNDS[b] && (b + 1 == BOUNDS.length ? max == Long.MAX_VALUE : max >= BOUNDS[b + 1] - 1);
+            if (full && bucket.bits != null) {
+                for (int w = 0; w < words; w++) mask[w] |= bucket.bits[w];
+            } else if (bucket.bits != null) {
+                for (int w = 0; w < words; w++) {
+                    for (long word = bucket.bits[w]; word != 0; word &= word - 1) {
+                        int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                        if (prices[row] >= min && prices[row] <= max) mask[w] |= 1L << row;
+                    }
+                }
+            } else {
+                for (int i = 0; i < bucket.size; i++) {
+                    int row = bucket.rows[i];
+                    if (full || (prices[row] >= min && prices[row] <= max)) mask[row >>> 6] |= 1L << row;
+                }
+            }
+        }
+        return mask;
+    }
+
+    // ============ BITSETS ============
+
+    /**
+     * Cuántas filas de cada conjunto están en la máscara (null = sin filtro,
+     * se usan los contadores). Se recorren las filas de la máscara si son
+     * pocas; si no, se hace el AND con cada conjunto.
+     * @param groupOfRow Conjunto al que pertenece cada fila (-1 = ninguno)
+     */
+    private int[] countPerSet(RowSet[] sets, int[] groupOfRow, long[] mask) {
+        int[] counts = new int[sets.length];
+        if (mask == null) {
+            for (int i = 0; i < sets.length; i++) counts[i] = sets[i].size;
+            return counts;
+        }
+        long perSetCost = 0;
+        for (RowSet set : sets) perSetCost += set.bits != null ? set.bits.length : set.size;
+        if (mask.length + (long) cardinality(mask) < perSetCost) {
+            for (int w = 0; w < mask.length; w++) {
+                for (long word = mask[w]; word != 0; word &= word - 1) {
+                    int group = groupOfRow[(w << 6) + Long.numberOfTrailingZeros(word)];
+                    if (group >= 0) counts[group]++;
+                }
+            }
+        } else {
+            for (int i = 0; i < sets.length; i++) {
+                if (sets[i].size > 0) counts[i] = sets[i].countIn(mask);
+            }
+        }
+        return counts;
+    }
+
+    private static boolean contains(long[] bits, int row) {
+        int w = row >>> 6;
+        return w < bits.length && (bits[w] & (1L << row)) != 0;
+    }
+
+    /**
+     * AND de dos máscaras; null equivale a "sin filtro"
+     */
+    private static long[] and(long[] a, long[] b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        long[] out = new long[Math.min(a.length, b.length)];
+        for (int w = 0; w < out.length; w++) out[w] = a[w] & b[w];
+        return out;
+    }
+
+    private static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) count += Long.bitCount(word);
+        return count;
+    }
+}
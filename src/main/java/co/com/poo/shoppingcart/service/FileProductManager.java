@@ -1,69 +1,577 @@
 package co.com.poo.shoppingcart.service;
 
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.util.IntIntHashMap;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Catálogo de productos leído de un archivo ID|Titulo|Categoria|Precio.
+ *
+ * El archivo se mapea a memoria y se parte en trozos alineados a fin de línea
+ * que se parsean en paralelo en el ForkJoinPool común; los bytes se leen
+ * directo del mapeo sin crear un String por línea. Los productos quedan en un
+ * arreglo con un índice ID -> posición (IntIntHashMap), así getProductById es O(1).
+ * Las líneas mal formadas no detienen la carga: se reportan con su número.
+ *
+ * La carga empieza al crear la instancia y corre en segundo plano. Después se
+ * vigila el archivo (WatchService) y cada cambio genera un catálogo nuevo que
+ * reemplaza al anterior de forma atómica; getCatalogVersion y getLastLoadMillis
+ * indican la versión publicada y cuánto tardó su carga.
+ *
+ * El archivo es el indicado en -Dproducts.file=ruta o, si no, products.txt del classpath.
+ */
 public class FileProductManager implements ProductRepository {
 
-    private static final FileProductManager INSTANCE = new FileProductManager();
-    private List<Product> products = new ArrayList<>();
     private static final String FILE_PATH = "products.txt";
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    // Tamaño máximo de cada región mapeada (un MappedByteBuffer llega a 2 GB)
+    private static final long REGION_SIZE = 1L << 30;
+
+    // Por debajo de este tamaño un trozo se parsea sin volver a dividirlo
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    // Tiempo sin cambios en el archivo antes de recargarlo (los editores escriben en varios pasos)
+    private static final long RELOAD_DEBOUNCE_MS = 200;
+
+    private final Path file;      // null si el catálogo está dentro de un jar
+    private final URL resource;   // solo si file es null
+    private final CompletableFuture<Catalog> initialLoad;
+    private volatile Catalog current;
 
     private FileProductManager() {
-        loadProductsFromFile();
+        Path resolvedFile = null;
+        URL resolvedResource = null;
+        try {
+            String configured = System.getProperty("products.file");
+            if (configured != null) {
+                resolvedFile = Path.of(configured);
+            } else {
+                resolvedResource = FileProductManager.class.getClassLoader().getResource(FILE_PATH);
+                if (resolvedResource != null && "file".equals(resolvedResource.getProtocol())) {
+                    resolvedFile = Path.of(resolvedResource.toURI());
+                    resolvedResource = null;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error al ubicar el archivo de productos: " + e.getMessage());
+        }
+        this.file = resolvedFile;
+        this.resource = resolvedResource;
+
+        // La carga corre en segundo plano: la consola arranca de inmediato y
+        // solo la primera consulta del catálogo espera a que termine
+        this.initialLoad = CompletableFuture.supplyAsync(this::initialCatalog, ForkJoinPool.commonPool());
+    }
+
+    // La instancia (y la carga) se crea recién en el primer getInstance, no al usar readFile
+    private static final class Holder {
+        static final FileProductManager INSTANCE = new FileProductManager();
     }
 
     public static FileProductManager getInstance() {
-        return INSTANCE;
+        return Holder.INSTANCE;
     }
 
     @Override
     public List<Product> loadProducts() {
-        return products;
+        return catalog().products;
     }
 
     @Override
     public Product getProductById(Integer id) {
         if (id == null) return null;
-        return products.stream()
-                .filter(p -> p.getId() == id)
-                .findFirst()
-                .orElse(null);
+        Catalog snapshot = catalog();
+        int pos = snapshot.index.get(id);
+        return pos == IntIntHashMap.NO_VALUE ? null : snapshot.products.get(pos);
+    }
+
+    @Override
+    public List<Product> filterProducts(CatalogFilter filter) {
+        return catalog().columns.filter(filter);
+    }
+
+    /**
+     * @return Las líneas que no se pudieron cargar, con su número y el motivo
+     */
+    public List<String> getParseErrors() {
+        return catalog().parseErrors;
+    }
+
+    /**
+     * Lee un archivo de catálogo sin publicarlo ni vigilarlo (por ejemplo, para
+     * convertirlo con CatalogSnapshotWriter). Las líneas omitidas se informan por consola.
+     * @return Los productos del archivo, sin IDs repetidos
+     */
+    public static List<Product> readFile(Path file) throws IOException {
+        return buildCatalog(parseFile(file), 0, System.nanoTime(), file.toString(), false).products;
+    }
+
+    /**
+     * @return Versión del catálogo publicado (1 la primera carga, +1 por recarga); 0 si aún no termina la primera
+     */
+    public long getCatalogVersion() {
+        Catalog snapshot = current;
+        return snapshot == null ? 0 : snapshot.version;
+    }
+
+    /**
+     * @return Duración en milisegundos de la última carga publicada; 0 si aún no termina la primera
+     */
+    public long getLastLoadMillis() {
+        Catalog snapshot = current;
+        return snapshot == null ? 0 : snapshot.loadMillis;
     }
 
+    /**
+     * Catálogo publicado. Después de la primera carga es una lectura volátil:
+     * las recargas construyen otro Catalog y lo reemplazan completo, así que
+     * quien lee nunca espera ni ve un catálogo a medio cargar.
+     */
+    private Catalog catalog() {
+        Catalog snapshot = current;
+        return snapshot != null ? snapshot : initialLoad.join();
+    }
 
-    private void loadProductsFromFile() {
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(FILE_PATH);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+    /**
+     * Catálogo cargado: productos en orden de archivo, índice ID -> posición,
+     * columnas para filtros combinados, líneas omitidas, versión y duración de
+     * la carga. No se modifica después de construido.
+     */
+    private static final class Catalog {
+        final List<Product> products;
+        final IntIntHashMap index;
+        final ColumnarCatalog columns;
+        final List<String> parseErrors;
+        final long version;
+        final long loadMillis;
 
-            String line;
-            boolean firstLine = true;
+        Catalog(List<Product> products, IntIntHashMap index, ColumnarCatalog columns,
+                List<String> parseErrors, long version, long loadMillis) {
+            this.products = products;
+            this.index = index;
+            this.columns = columns;
+            this.parseErrors = parseErrors;
+            this.version = version;
+            this.loadMillis = loadMillis;
+        }
+    }
+
+    private Catalog initialCatalog() {
+        long start = System.nanoTime();
+        Catalog catalog;
+        try {
+            catalog = buildCatalog(parseSource(), 1, start, sourceName(), true);
+        } catch (IOException | RuntimeException | InternalError e) {
+            System.err.println("Error al cargar los productos: " + e.getMessage());
+            catalog = new Catalog(List.of(), new IntIntHashMap(), new ColumnarCatalog(), List.of(), 1, elapsedMillis(start));
+        }
+        current = catalog;
+        if (file != null) {
+            Thread watcher = new Thread(this::watch, "catalog-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        return catalog;
+    }
 
-            while ((line = reader.readLine()) != null) {
-                if (firstLine) {
-                    firstLine = false;
-                    continue;
+    private static Catalog buildCatalog(ParseResult result, long version, long start, String sourceName,
+                                        boolean withColumns) {
+        IntIntHashMap index = new IntIntHashMap(result.products.size());
+        List<Product> unique = new ArrayList<>(result.products.size());
+        List<ParseError> errors = new ArrayList<>(result.errors);
+        for (int i = 0; i < result.products.size(); i++) {
+            Product product = result.products.get(i);
+            if (index.containsKey(product.getId())) {
+                errors.add(new ParseError(result.lines[i], "ID duplicado " + product.getId()));
+                continue;
+            }
+            index.put(product.getId(), unique.size());
+            unique.add(product);
+        }
+        errors.sort(Comparator.comparingLong(e -> e.line));
+        if (!errors.isEmpty()) {
+            System.err.println("Se omitieron " + errors.size() + " líneas de " + sourceName + ":");
+            errors.stream().limit(MAX_REPORTED_ERRORS).forEach(e -> System.err.println("  " + e));
+        }
+        ColumnarCatalog columns = withColumns ? ColumnarCatalog.of(unique) : null;
+        return new Catalog(Collections.unmodifiableList(unique), index, columns,
+                errors.stream().map(ParseError::toString).toList(), version, elapsedMillis(start));
+    }
+
+    private String sourceName() {
+        return file != null ? file.toString() : FILE_PATH;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // ============ RECARGA ============
+
+    /**
+     * Vigila el directorio del archivo y recarga el catálogo cuando cambia.
+     * Corre en su propio hilo (daemon) mientras viva la aplicación.
+     */
+    private void watch() {
+        Path dir = file.toAbsolutePath().getParent();
+        Path name = file.getFileName();
+        try (WatchService watchService = dir.getFileSystem().newWatchService()) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = touches(key, name);
+                if (!key.reset()) break; // el directorio ya no existe
+                if (!changed) continue;
+
+                // Se espera a que el archivo deje de cambiar antes de leerlo
+                WatchKey more;
+                while ((more = watchService.poll(RELOAD_DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
                 }
+                reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("No se puede vigilar " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean touches(WatchKey key, Path name) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) {
+                touched = true;
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Construye un catálogo nuevo y lo publica de una vez. Si la lectura falla
+     * (o el archivo quedó vacío) se conserva el catálogo anterior.
+     */
+    private void reload() {
+        long start = System.nanoTime();
+        Catalog previous = current;
+        try {
+            ParseResult result = parseSource();
+            if (result.products.isEmpty() && !previous.products.isEmpty()) {
+                System.err.println("El archivo " + file + " no tiene productos; se conserva la versión " + previous.version);
+                return;
+            }
+            Catalog next = buildCatalog(result, previous.version + 1, start, sourceName(), true);
+            current = next;
+            System.err.println("Catálogo recargado: versión " + next.version + ", "
+                    + next.products.size() + " productos en " + next.loadMillis + " ms");
+        } catch (IOException | RuntimeException | InternalError e) {
+            // InternalError: el archivo se truncó mientras estaba mapeado
+            System.err.println("No se pudo recargar " + file + ", se conserva la versión "
+                    + previous.version + ": " + e.getMessage());
+        }
+    }
+
+    // ============ CARGA ============
+
+    /**
+     * Línea que no se pudo cargar
+     */
+    private static final class ParseError {
+        final long line;
+        final String message;
+
+        ParseError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Línea " + line + ": " + message;
+        }
+    }
 
-                String[] data = line.split("\\|");
-                if (data.length == 4) {
-                    products.add(new Product(
-                            Integer.parseInt(data[0]),
-                            data[1],
-                            data[2],
-                            Double.parseDouble(data[3])
-                    ));
+    /**
+     * Productos parseados (en orden de archivo) con el número de línea de cada
+     * uno y los errores encontrados
+     */
+    private static final class ParseResult {
+        final List<Product> products;
+        final long[] lines;
+        final List<ParseError> errors;
+
+        ParseResult(List<Product> products, long[] lines, List<ParseError> errors) {
+            this.products = products;
+            this.lines = lines;
+            this.errors = errors;
+        }
+    }
+
+    private ParseResult parseSource() throws IOException {
+        if (file != null) {
+            return parseFile(file);
+        }
+        if (resource == null) {
+            throw new IOException("No se encontró " + FILE_PATH);
+        }
+        // Dentro de un jar no se puede mapear: se lee a memoria
+        try (InputStream in = resource.openStream()) {
+            return parse(List.of(ByteBuffer.wrap(in.readAllBytes())));
+        }
+    }
+
+    /**
+     * Mapea el archivo en regiones de hasta REGION_SIZE que terminan en fin de línea
+     */
+    private static ParseResult parseFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ByteBuffer> regions = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long length = Math.min(REGION_SIZE, size - start);
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                if (start + length < size) {
+                    int end = (int) length - 1;
+                    while (end >= 0 && region.get(end) != '\n') end--;
+                    if (end < 0) throw new IOException("Línea de más de " + REGION_SIZE + " bytes");
+                    length = end + 1;
+                    region = region.slice(0, (int) length);
                 }
+                regions.add(region);
+                start += length;
             }
+            return parse(regions);
+        }
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error al cargar los productos: " + e.getMessage());
+    /**
+     * Parsea las regiones en paralelo y junta los resultados en orden
+     */
+    private static ParseResult parse(List<ByteBuffer> regions) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (ByteBuffer region : regions) {
+            chunks.add(ForkJoinPool.commonPool().invoke(new ParseTask(region, 0, region.limit())));
+        }
+
+        List<Chunk> leaves = new ArrayList<>();
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            chunk.collectLeaves(leaves);
+        }
+        for (Chunk leaf : leaves) {
+            total += leaf.products.size();
+        }
+
+        List<Product> products = new ArrayList<>(total);
+        long[] lines = new long[total];
+        List<ParseError> errors = new ArrayList<>();
+        long lineOffset = 0;
+        for (Chunk leaf : leaves) {
+            for (int i = 0; i < leaf.products.size(); i++) {
+                lines[products.size()] = lineOffset + leaf.productLines[i];
+                products.add(leaf.products.get(i));
+            }
+            for (ParseError error : leaf.errors) {
+                errors.add(new ParseError(lineOffset + error.line, error.message));
+            }
+            lineOffset += leaf.lineCount;
+        }
+        return new ParseResult(products, lines, errors);
+    }
+
+    /**
+     * Resultado de parsear un trozo; los números de línea son relativos al trozo (desde 1)
+     */
+    private static final class Chunk {
+        final List<Product> products = new ArrayList<>();
+        long[] productLines = new long[16];
+        final List<ParseError> errors = new ArrayList<>();
+        // Las categorías se repiten mucho: se comparte un solo String por trozo
+        final Map<String, String> categories = new HashMap<>();
+        long lineCount;
+        Chunk left;
+        Chunk right;
+
+        /**
+         * Agrega los trozos hoja en orden de archivo
+         */
+        void collectLeaves(List<Chunk> leaves) {
+            if (left == null) {
+                leaves.add(this);
+            } else {
+                left.collectLeaves(leaves);
+                right.collectLeaves(leaves);
+            }
+        }
+
+        void addProduct(Product product, long line) {
+            if (products.size() == productLines.length) {
+                productLines = Arrays.copyOf(productLines, productLines.length * 2);
+            }
+            productLines[products.size()] = line;
+            products.add(product);
+        }
+
+        void addError(long line, String message) {
+            errors.add(new ParseError(line, message));
         }
     }
 
+    /**
+     * Divide el rango en dos mitades alineadas a fin de línea hasta que sea
+     * menor que CHUNK_SIZE, y parsea cada mitad en paralelo
+     */
+    private static final class ParseTask extends RecursiveTask<Chunk> {
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+
+        ParseTask(ByteBuffer buffer, int from, int to) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (to - from > CHUNK_SIZE) {
+                int mid = from + (to - from) / 2;
+                while (mid < to && buffer.get(mid - 1) != '\n') mid++;
+                if (mid < to) {
+                    ParseTask first = new ParseTask(buffer, from, mid);
+                    ParseTask second = new ParseTask(buffer, mid, to);
+                    first.fork();
+                    Chunk chunk = new Chunk();
+                    chunk.right = second.compute();
+                    chunk.left = first.join();
+                    return chunk;
+                }
+            }
+            return parseRange();
+        }
+
+        private Chunk parseRange() {
+            Chunk chunk = new Chunk();
+            int lineStart = from;
+            while (lineStart < to) {
+                int lineEnd = lineStart;
+                while (lineEnd < to && buffer.get(lineEnd) != '\n') lineEnd++;
+                chunk.lineCount++;
+                parseLine(chunk, lineStart, lineEnd);
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        private void parseLine(Chunk chunk, int start, int end) {
+            if (end > start && buffer.get(end - 1) == '\r') end--;
+            if (end == start) return; // línea vacía
+
+            // Encabezado: la primera línea del archivo si no empieza con un dígito
+            boolean firstLineOfFile = start == 0 && from == 0;
+            if (firstLineOfFile && !isDigit(buffer.get(start))) return;
+
+            int pipe1 = -1, pipe2 = -1, pipe3 = -1;
+            for (int i = start; i < end; i++) {
+                if (buffer.get(i) != '|') continue;
+                if (pipe1 < 0) pipe1 = i;
+                else if (pipe2 < 0) pipe2 = i;
+                else if (pipe3 < 0) pipe3 = i;
+                else {
+                    pipe3 = -1;
+                    break;
+                }
+            }
+            if (pipe3 < 0) {
+                chunk.addError(chunk.lineCount, "se esperaban 4 columnas");
+                return;
+            }
+            try {
+                int id = parseInt(start, pipe1);
+                String name = decode(pipe1 + 1, pipe2);
+                String category = chunk.categories.computeIfAbsent(decode(pipe2 + 1, pipe3), c -> c);
+                long price = parsePrice(pipe3 + 1, end);
+                chunk.addProduct(new Product(id, name, category, price), chunk.lineCount);
+            } catch (NumberFormatException | ArithmeticException e) {
+                chunk.addError(chunk.lineCount, "número inválido (" + e.getMessage() + ")");
+            }
+        }
+
+        private int parseInt(int start, int end) {
+            while (start < end && buffer.get(start) == ' ') start++;
+            while (end > start && buffer.get(end - 1) == ' ') end--;
+            if (start == end) throw new NumberFormatException("ID vacío");
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (!isDigit(b)) throw new NumberFormatException("ID " + decode(start, end));
+                value = value * 10 + (b - '0');
+                if (value > Integer.MAX_VALUE) throw new NumberFormatException("ID " + decode(start, end));
+            }
+            return (int) value;
+        }
+
+        /**
+         * Precio con hasta Money.SCALE decimales leído directo de los bytes; cualquier
+         * otro formato (exponentes, signo, más decimales) pasa por Money.parse
+         */
+        private long parsePrice(int start, int end) {
+            while (start < end && buffer.get(start) == ' ') start++;
+            while (end > start && buffer.get(end - 1) == ' ') end--;
+            long units = 0;
+            int decimals = -1;
+            for (int i = start; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (isDigit(b) && decimals < Money.SCALE && units < Long.MAX_VALUE / 100) {
+                    units = units * 10 + (b - '0');
+                    if (decimals >= 0) decimals++;
+                } else {
+                    return Money.parse(decode(start, end));
+                }
+            }
+            if (start == end || decimals == 0) return Money.parse(decode(start, end));
+            for (int d = Math.max(decimals, 0); d < Money.SCALE; d++) units *= 10;
+            return units;
+        }
+
+        private String decode(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static boolean isDigit(byte b) {
+            return b >= '0' && b <= '9';
+        }
+    }
 }
@@ -0,0 +1,402 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.Cart;
+import co.com.poo.shoppingcart.model.CartItem;
+import co.com.poo.shoppingcart.model.Product;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Repositorio de carritos guardado fuera del heap, en un archivo mapeado a memoria.
+ *
+ * El archivo es una tabla hash de registros de tamaño fijo (2 KB): cada cliente
+ * ocupa un registro con su ID y dos copias de su carrito, de hasta MAX_ITEMS
+ * líneas (producto, cantidad y precio unitario). Así se pueden guardar millones
+ * de carritos sin que el GC tenga que recorrerlos, y los carritos sobreviven a
+ * un reinicio sin base de datos.
+ *
+ * Cada copia lleva un número de secuencia (impar mientras se escribe) y un
+ * CRC32 de su contenido. Las escrituras alternan entre las dos copias: siempre
+ * se sobrescribe la más vieja y se lee la de mayor secuencia. Al abrir el
+ * archivo se revisan todas; si una quedó a medio escribir (escritura rota) se
+ * descarta y el carrito queda con la otra, es decir, con su versión anterior.
+ *
+ * Los registros borrados quedan marcados (para no cortar el sondeo lineal) y
+ * se reutilizan al insertar; si detrás de ellos no sigue nada, vuelven a
+ * quedar vacíos.
+ *
+ * Para la consola: se activa con -Dcart.file=ruta (ver ShoppingCartApp), que
+ * cierra el archivo (y lo baja a disco) al terminar.
+ */
+public class MappedFileCartManager implements CartRepository, Closeable {
+
+    public static final String DEFAULT_CUSTOMER_ID = "default";
+
+    /** Líneas máximas por carrito */
+    public static final int MAX_ITEMS = 59;
+
+    private static final int MAGIC = 0x43415254; // "CART"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 2048;
+    private static final int SEGMENT_RECORDS = 1 << 19; // 1 GB por segmento mapeado
+
+    // Distribución de cada registro
+    private static final int STATE = 0;        // int
+    private static final int KEY_LENGTH = 4;   // short
+    private static final int KEY = 6;          // hasta MAX_KEY_BYTES bytes UTF-8
+    private static final int MAX_KEY_BYTES = 46;
+    private static final int COPIES = 64;      // dos copias de COPY_SIZE bytes
+    private static final int COPY_SIZE = 976;
+
+    // Distribución de cada copia
+    private static final int CRC = 0;          // int, CRC32 de [SEQ, COPY_SIZE)
+    private static final int SEQ = 8;          // long
+    private static final int ITEM_COUNT = 16;  // int
+    private static final int ITEMS = 24;       // MAX_ITEMS x (int productId, int quantity, long unitPrice)
+    private static final int ITEM_SIZE = 16;
+
+    private static final int EMPTY = 0;
+    private static final int USED = 1;
+    private static final int DELETED = 2;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ProductRepository productRepository;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final MappedByteBuffer[] segments;
+    private final int capacity;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Object claimLock = new Object();
+    private final int tornRecords;
+    private int size;
+
+    /**
+     * Abre (o crea) el archivo de carritos y revisa que no haya registros rotos
+     * @param file Ruta del archivo
+     * @param capacity Cantidad máxima de carritos (solo se usa al crear el archivo)
+     * @param productRepository Repositorio para reconstruir los productos de cada línea
+     */
+    public MappedFileCartManager(Path file, int capacity, ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            boolean exists = Files.exists(file) && Files.size(file) >= HEADER_SIZE;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (exists) {
+                if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION || header.getInt(12) != RECORD_SIZE) {
+                    throw new IllegalStateException("El archivo " + file + " no es un archivo de carritos válido"
+                            + " (o es de otra versión del formato)");
+                }
+                this.capacity = header.getInt(8);
+            } else {
+                this.capacity = capacity;
+                header.putInt(0, MAGIC);
+                header.putInt(4, FORMAT_VERSION);
+                header.putInt(8, capacity);
+                header.putInt(12, RECORD_SIZE);
+            }
+            int segmentCount = (this.capacity + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS;
+            segments = new MappedByteBuffer[segmentCount];
+            for (int s = 0; s < segmentCount; s++) {
+                int records = Math.min(SEGMENT_RECORDS, this.capacity - s * SEGMENT_RECORDS);
+                long offset = HEADER_SIZE + (long) s * SEGMENT_RECORDS * RECORD_SIZE;
+                segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) records * RECORD_SIZE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el archivo de carritos " + file, e);
+        }
+        this.tornRecords = recover();
+    }
+
+    @Override
+    public void saveCart(Cart cart) {
+        saveCart(DEFAULT_CUSTOMER_ID, cart);
+    }
+
+    @Override
+    public Cart getCart() {
+        return getCart(DEFAULT_CUSTOMER_ID);
+    }
+
+    @Override
+    public void saveCart(String customerId, Cart cart) {
+        byte[] key = encodeKey(customerId);
+        List<CartItem> items = cart.getItems();
+        if (items.size() > MAX_ITEMS) {
+            throw new IllegalStateException("El carrito supera el máximo de " + MAX_ITEMS + " líneas");
+        }
+        synchronized (lockFor(key)) {
+            int slot = find(key);
+            if (slot < 0) {
+                slot = claim(key);
+            }
+            write(slot, items);
+        }
+    }
+
+    @Override
+    public Cart getCart(String customerId) {
+        byte[] key = encodeKey(customerId);
+        synchronized (lockFor(key)) {
+            int slot = find(key);
+            return slot < 0 ? new Cart() : read(slot);
+        }
+    }
+
+    /**
+     * Borra el carrito del cliente (el registro queda marcado como eliminado)
+     */
+    public void deleteCart(String customerId) {
+        byte[] key = encodeKey(customerId);
+        synchronized (lockFor(key)) {
+            int slot = find(key);
+            if (slot < 0) return;
+            synchronized (claimLock) {
+                record(slot).putInt(STATE, DELETED);
+                size--;
+                reclaimTombstones(slot);
+            }
+        }
+    }
+
+    /**
+     * @return Cantidad de copias descartadas al abrir el archivo por estar a medio
+     * escribir (sus carritos quedaron con la versión anterior)
+     */
+    public int getTornRecords() {
+        return tornRecords;
+    }
+
+    public int size() {
+        synchronized (claimLock) {
+            return size;
+        }
+    }
+
+    /**
+     * Fuerza la escritura a disco de todo lo que esté en memoria
+     */
+    public void sync() {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    // ============ REGISTROS ============
+
+    /**
+     * Escribe el carrito en la copia más vieja del registro; la otra queda
+     * intacta hasta que esta termina
+     */
+    private void write(int slot, List<CartItem> items) {
+        ByteBuffer record = record(slot);
+        int current = currentCopy(record);
+        long seq = copy(record, current).getLong(SEQ) + 2;
+        ByteBuffer target = copy(record, 1 - current);
+        target.putLong(SEQ, seq - 1); // impar: escritura en curso
+        target.putInt(ITEM_COUNT, items.size());
+        int offset = ITEMS;
+        for (CartItem item : items) {
+            target.putInt(offset, item.getProductId());
+            target.putInt(offset + 4, item.getQuantity());
+            target.putLong(offset + 8, item.getPrice());
+            offset += ITEM_SIZE;
+        }
+        target.putLong(SEQ, seq); // par: copia estable
+        target.putInt(CRC, checksum(target));
+    }
+
+    private Cart read(int slot) {
+        ByteBuffer record = record(slot);
+        ByteBuffer copy = copy(record, currentCopy(record));
+        Cart cart = new Cart();
+        int count = copy.getInt(ITEM_COUNT);
+        int offset = ITEMS;
+        for (int i = 0; i < count; i++) {
+            int productId = copy.getInt(offset);
+            int quantity = copy.getInt(offset + 4);
+            long unitPrice = copy.getLong(offset + 8);
+            Product product = productRepository.getProductById(productId);
+            if (product == null) {
+                // El producto ya no está en el catálogo: se conserva con el precio guardado
+                product = new Product(productId, "Producto " + productId, null, unitPrice);
+            }
+            cart.addItem(new CartItem(product, quantity));
+            offset += ITEM_SIZE;
+        }
+        return cart;
+    }
+
+    /**
+     * Revisa las dos copias de cada registro: las que tienen secuencia impar o
+     * CRC incorrecto se descartan (se dejan como un carrito vacío de secuencia
+     * 0, así se lee la otra). Si ninguna copia sirve, se borra el registro.
+     * @return Cantidad de copias rotas
+     */
+    private int recover() {
+        int torn = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            ByteBuffer record = record(slot);
+            if (record.getInt(STATE) != USED) continue;
+            boolean valid0 = isValid(copy(record, 0));
+            boolean valid1 = isValid(copy(record, 1));
+            if (!valid0 && !valid1) {
+                record.putInt(STATE, DELETED);
+                torn += 2;
+                continue;
+            }
+            if (!valid0) {
+                resetCopy(copy(record, 0));
+                torn++;
+            }
+            if (!valid1) {
+                resetCopy(copy(record, 1));
+                torn++;
+            }
+            size++;
+        }
+        return torn;
+    }
+
+    private static boolean isValid(ByteBuffer copy) {
+        int count = copy.getInt(ITEM_COUNT);
+        return (copy.getLong(SEQ) & 1) == 0 && count >= 0 && count <= MAX_ITEMS
+                && copy.getInt(CRC) == checksum(copy);
+    }
+
+    /**
+     * @return La copia vigente (0 o 1): la de mayor secuencia
+     */
+    private static int currentCopy(ByteBuffer record) {
+        return copy(record, 1).getLong(SEQ) > copy(record, 0).getLong(SEQ) ? 1 : 0;
+    }
+
+    private static ByteBuffer copy(ByteBuffer record, int copy) {
+        return record.slice(COPIES + copy * COPY_SIZE, COPY_SIZE);
+    }
+
+    private static void resetCopy(ByteBuffer copy) {
+        copy.putLong(SEQ, 0);
+        copy.putInt(ITEM_COUNT, 0);
+        copy.putInt(CRC, checksum(copy));
+    }
+
+    // ============ TABLA HASH (sondeo lineal) ============
+
+    private int find(byte[] key) {
+        int slot = home(key);
+        for (int probes = 0; probes < capacity; probes++) {
+            ByteBuffer record = record(slot);
+            int state = record.getInt(STATE);
+            if (state == EMPTY) return -1;
+            if (state == USED && keyEquals(record, key)) return slot;
+            slot = next(slot);
+        }
+        return -1;
+    }
+
+    /**
+     * Ocupa un registro para la clave (que no está en la tabla): el primer
+     * registro vacío o borrado de su secuencia de sondeo
+     */
+    private int claim(byte[] key) {
+        synchronized (claimLock) {
+            if ((size + 1) * 4L > capacity * 3L) {
+                throw new IllegalStateException("El archivo de carritos está lleno (capacidad " + capacity + ")");
+            }
+            int slot = home(key);
+            while (record(slot).getInt(STATE) == USED) {
+                slot = next(slot);
+            }
+            ByteBuffer record = record(slot);
+            record.putShort(KEY_LENGTH, (short) key.length);
+            record.put(KEY, key);
+            // Un registro reutilizado aún tiene las copias del cliente anterior
+            resetCopy(copy(record, 0));
+            resetCopy(copy(record, 1));
+            record.putInt(STATE, USED);
+            size++;
+            return slot;
+        }
+    }
+
+    /**
+     * Si después del registro borrado sigue uno vacío, ningún sondeo pasa por
+     * él: se deja vacío, junto con los borrados que lo preceden (bajo claimLock)
+     */
+    private void reclaimTombstones(int slot) {
+        if (record(next(slot)).getInt(STATE) != EMPTY) return;
+        while (record(slot).getInt(STATE) == DELETED) {
+            record(slot).putInt(STATE, EMPTY);
+            slot = slot == 0 ? capacity - 1 : slot - 1;
+        }
+    }
+
+    private ByteBuffer record(int slot) {
+        ByteBuffer segment = segments[slot / SEGMENT_RECORDS];
+        int offset = (slot % SEGMENT_RECORDS) * RECORD_SIZE;
+        return segment.slice(offset, RECORD_SIZE);
+    }
+
+    private static boolean keyEquals(ByteBuffer record, byte[] key) {
+        if (record.getShort(KEY_LENGTH) != key.length) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (record.get(KEY + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private static int checksum(ByteBuffer copy) {
+        CRC32 crc = new CRC32();
+        crc.update(copy.slice(SEQ, COPY_SIZE - SEQ));
+        return (int) crc.getValue();
+    }
+
+    private int home(byte[] key) {
+        int h = 0;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % capacity;
+    }
+
+    private int next(int slot) {
+        return slot + 1 == capacity ? 0 : slot + 1;
+    }
+
+    private Object lockFor(byte[] key) {
+        return locks[home(key) & (LOCK_STRIPES - 1)];
+    }
+
+    private static byte[] encodeKey(String customerId) {
+        byte[] key = customerId.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("El ID del cliente supera " + MAX_KEY_BYTES + " bytes");
+        }
+        return key;
+    }
+}
@@ -1,7 +1,10 @@
 package co.com.poo.shoppingcart.service;
 
+import co.com.poo.shoppingcart.model.CatalogFilter;
 import co.com.poo.shoppingcart.model.Product;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Representa un repositorio para almacenar y recuperar productos.
@@ -23,4 +26,48 @@ public interface ProductRepository {
      */
 
     Product getProductById(Integer id);
-}
\ No newline at end of file
+
+    /**
+     * Recupera los productos de una categoría.
+     * La categoría se compara normalizada (ver Product.categoryKey).
+     * Las implementaciones con índice deberían sobrescribirlo.
+     * @param category La categoría a buscar.
+     * @return Los productos de la categoría.
+     */
+
+    default List<Product> getProductsByCategory(String category) {
+        String key = Product.categoryKey(category);
+        return loadProducts().stream()
+                .filter(p -> key != null && key.equals(Product.categoryKey(p.getCategory())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recupera los productos con precio dentro de un rango.
+     * Las implementaciones con índice deberían sobrescribirlo.
+     * @param minPrice Precio mínimo en unidades mínimas, o null para no limitar.
+     * @param maxPrice Precio máximo en unidades mínimas, o null para no limitar.
+     * @return Los productos en el rango.
+     */
+
+    default List<Product> getProductsByPriceRange(Long minPrice, Long maxPrice) {
+        return loadProducts().stream()
+                .filter(p -> (minPrice == null || p.getPrice() >= minPrice)
+                        && (maxPrice == null || p.getPrice() <= maxPrice))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Recupera los productos que cumplen un filtro combinado (categoría, precio y stock).
+     * Las implementaciones con índice deberían sobrescribirlo (ver ColumnarCatalog).
+     * @param filter Condiciones del filtro.
+     * @return Los productos que cumplen todas las condiciones, ordenados por precio.
+     */
+
+    default List<Product> filterProducts(CatalogFilter filter) {
+        return loadProducts().stream()
+                .filter(filter::matches)
+                .sorted(Comparator.comparingLong(Product::getPrice))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,239 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.util.IntIntHashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Catálogo servido directamente desde un snapshot binario mapeado a memoria
+ * (ver CatalogSnapshot y CatalogSnapshotWriter).
+ *
+ * Abrirlo solo valida el encabezado: no se crea ningún objeto por producto.
+ * Cada Product se arma al pedirlo, leyendo sus columnas del mapeo; la búsqueda
+ * por ID usa el índice guardado en el archivo y los filtros por precio o
+ * categoría recorren las columnas sin materializar los que no coinciden.
+ * El archivo es de solo lectura y no debe modificarse mientras está abierto
+ * (CatalogSnapshotWriter lo reemplaza con un archivo nuevo).
+ */
+public class SnapshotProductManager implements ProductRepository {
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int indexMask;
+    private final long createdAt;
+
+    // Inicio de cada sección dentro del archivo
+    private final int pricesAt;
+    private final int stocksAt;
+    private final int idsAt;
+    private final int namesAt;
+    private final int categoriesAt;
+    private final int indexAt;
+    private final int stringOffsetsAt;
+    private final int stringDataAt;
+
+    private final List<Product> products;
+
+    public SnapshotProductManager(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < CatalogSnapshot.HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Tamaño de snapshot inválido: " + size + " bytes");
+            }
+            // El mapeo sigue siendo válido después de cerrar el canal
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != CatalogSnapshot.MAGIC) {
+            throw new IOException(file + " no es un snapshot de catálogo");
+        }
+        int version = buffer.getInt(4);
+        if (version != CatalogSnapshot.FORMAT_VERSION) {
+            throw new IOException("Versión de snapshot no soportada: " + version);
+        }
+        this.count = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        int capacity = buffer.getInt(16);
+        long stringBytes = buffer.getLong(24);
+        this.createdAt = buffer.getLong(32);
+        if (count < 0 || stringCount < 0 || capacity < 2 || Integer.bitCount(capacity) != 1 || capacity < count) {
+            throw new IOException("Encabezado de snapshot inválido");
+        }
+        this.indexMask = capacity - 1;
+
+        long position = CatalogSnapshot.HEADER_SIZE;
+        this.pricesAt = (int) position;
+        position += 8L * count;
+        this.stocksAt = (int) position;
+        position += 4L * count;
+        this.idsAt = (int) position;
+        position += 4L * count;
+        this.namesAt = (int) position;
+        position += 4L * count;
+        this.categoriesAt = (int) position;
+        position += 4L * count;
+        this.indexAt = (int) position;
+        position += 8L * capacity;
+        this.stringOffsetsAt = (int) position;
+        position += 4L * (stringCount + 1);
+        this.stringDataAt = (int) position;
+        position += stringBytes;
+        if (position != buffer.limit()) {
+            throw new IOException("Snapshot truncado o corrupto: se esperaban " + position
+                    + " bytes y hay " + buffer.limit());
+        }
+
+        this.products = new SnapshotList();
+    }
+
+    /**
+     * @return Vista de solo lectura del catálogo; cada elemento se arma al pedirlo
+     */
+    @Override
+    public List<Product> loadProducts() {
+        return products;
+    }
+
+    @Override
+    public Product getProductById(Integer id) {
+        if (id == null) return null;
+        int ordinal = ordinalOf(id);
+        return ordinal < 0 ? null : read(ordinal);
+    }
+
+    @Override
+    public List<Product> getProductsByCategory(String category) {
+        String key = Product.categoryKey(category);
+        List<Product> result = new ArrayList<>();
+        if (key == null) return result;
+        // Pocas categorías distintas: cada una se decodifica una sola vez
+        IntIntHashMap matches = new IntIntHashMap();
+        for (int i = 0; i < count; i++) {
+            int ref = buffer.getInt(categoriesAt + 4 * i);
+            if (ref == CatalogSnapshot.NO_STRING) continue;
+            int match = matches.get(ref);
+            if (match == IntIntHashMap.NO_VALUE) {
+                match = key.equals(Product.categoryKey(string(ref))) ? 1 : 0;
+                matches.put(ref, match);
+            }
+            if (match == 1) result.add(read(i));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Product> getProductsByPriceRange(Long minPrice, Long maxPrice) {
+        long min = minPrice == null ? Long.MIN_VALUE : minPrice;
+        long max = maxPrice == null ? Long.MAX_VALUE : maxPrice;
+        List<Product> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long price = buffer.getLong(pricesAt + 8 * i);
+            if (price >= min && price <= max) result.add(read(i));
+        }
+        return result;
+    }
+
+    /**
+     * Un solo recorrido por las columnas del mapeo: se comprueba precio, stock
+     * y categoría sin armar los productos que no coinciden
+     */
+    @Override
+    public List<Product> filterProducts(CatalogFilter filter) {
+        long min = filter.getMinPrice() == null ? Long.MIN_VALUE : filter.getMinPrice();
+        long max = filter.getMaxPrice() == null ? Long.MAX_VALUE : filter.getMaxPrice();
+        String key = filter.getCategoryKey();
+        IntIntHashMap matches = new IntIntHashMap();
+        List<Product> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long price = buffer.getLong(pricesAt + 8 * i);
+            if (price < min || price > max) continue;
+            if (filter.isInStockOnly() && buffer.getInt(stocksAt + 4 * i) <= 0) continue;
+            if (key != null) {
+                int ref = buffer.getInt(categoriesAt + 4 * i);
+                if (ref == CatalogSnapshot.NO_STRING) continue;
+                int match = matches.get(ref);
+                if (match == IntIntHashMap.NO_VALUE) {
+                    match = key.equals(Product.categoryKey(string(ref))) ? 1 : 0;
+                    matches.put(ref, match);
+                }
+                if (match == 0) continue;
+            }
+            result.add(read(i));
+        }
+        result.sort(Comparator.comparingLong(Product::getPrice));
+        return result;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return Fecha de creación del snapshot (epoch millis)
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Posición del producto con ese ID, o -1 si no está
+     */
+    private int ordinalOf(int id) {
+        int slot = CatalogSnapshot.slot(id, indexMask);
+        while (true) {
+            int at = indexAt + 8 * slot;
+            int ordinal = buffer.getInt(at + 4);
+            if (ordinal == 0) return -1;
+            if (buffer.getInt(at) == id) return ordinal - 1;
+            slot = (slot + 1) & indexMask;
+        }
+    }
+
+    private Product read(int ordinal) {
+        int stock = buffer.getInt(stocksAt + 4 * ordinal);
+        int categoryRef = buffer.getInt(categoriesAt + 4 * ordinal);
+        return new Product(
+                buffer.getInt(idsAt + 4 * ordinal),
+                string(buffer.getInt(namesAt + 4 * ordinal)),
+                categoryRef == CatalogSnapshot.NO_STRING ? null : string(categoryRef),
+                buffer.getLong(pricesAt + 8 * ordinal),
+                stock == CatalogSnapshot.NO_STOCK ? null : stock);
+    }
+
+    private String string(int ref) {
+        int start = buffer.getInt(stringOffsetsAt + 4 * ref);
+        int end = buffer.getInt(stringOffsetsAt + 4 * (ref + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataAt + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lista respaldada por el snapshot
+     */
+    private final class SnapshotList extends AbstractList<Product> implements RandomAccess {
+        @Override
+        public Product get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return read(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
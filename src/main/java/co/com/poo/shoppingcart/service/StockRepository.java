@@ -0,0 +1,32 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.CartItem;
+
+import java.util.List;
+
+/**
+ * Stock de los productos al cerrar un pedido.
+ */
+public interface StockRepository {
+
+    /**
+     * Confirma la venta de los items del carrito del cliente: usa lo que el
+     * cliente tenía reservado y reserva lo que falte. Es todo o nada.
+     * @param customerId ID del cliente dueño del carrito (null = sin reservas previas)
+     * @param items Items del pedido
+     * @throws co.com.poo.shoppingcart.exception.InsufficientStockException si algún producto no alcanza
+     */
+    void commit(String customerId, List<CartItem> items);
+
+    /**
+     * Deshace un commit cuyo pedido no se pudo completar: las unidades vuelven
+     * al stock disponible (las reservas del cliente no se recuperan)
+     * @param items Items del pedido confirmado
+     */
+    default void restore(List<CartItem> items) { }
+
+    /**
+     * Stock sin límite, para implementaciones que no manejan inventario (como la consola)
+     */
+    StockRepository UNLIMITED = (customerId, items) -> { };
+}
@@ -0,0 +1,278 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.util.IntIntHashMap;
+import co.com.poo.shoppingcart.util.SpanishAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido para buscar productos por texto (nombre y
+ * descripción/categoría) con ranking BM25.
+ *
+ * Cada producto tiene un número interno denso (ordinal). Cada término apunta
+ * a sus documentos (ordinales ordenados) con la frecuencia del término en
+ * cada uno. El nombre pesa el doble que la descripción. Para una consulta se
+ * suman los puntajes BM25 de sus términos en un arreglo por hilo indexado por
+ * ordinal (sin mapas ni boxing) y se eligen los k mejores con un heap de
+ * tamaño k.
+ *
+ * Las búsquedas toman el lock de lectura y las escrituras el de escritura.
+ */
+public final class TextIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 2;
+
+    /**
+     * Resultado de una búsqueda
+     */
+    public static final class Hit {
+        private final int productId;
+        private final double score;
+
+        Hit(int productId, double score) {
+            this.productId = productId;
+            this.score = score;
+        }
+
+        public int getProductId() {
+            return productId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Documentos de un término: ordinales ordenados y frecuencia del término en cada uno
+     */
+    private static final class Postings {
+        int[] ids = new int[4];
+        int[] freqs = new int[4];
+        int size;
+
+        void put(int id, int freq) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                freqs[pos] = freq;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            System.arraycopy(freqs, pos, freqs, pos + 1, size - pos);
+            ids[pos] = id;
+            freqs[pos] = freq;
+            size++;
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            System.arraycopy(freqs, pos + 1, freqs, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Acumulador de puntajes de una búsqueda (uno por hilo)
+     */
+    private static final class Accumulator {
+        double[] scores = new double[0];
+        int[] touched = new int[0];
+        int touchedCount;
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Set<String>> termsById = new HashMap<>();
+    private final IntIntHashMap ordinalById = new IntIntHashMap();
+    private int[] idByOrdinal = new int[16];
+    private int[] lengthByOrdinal = new int[16];
+    private int[] freeOrdinals = new int[0];
+    private int freeCount;
+    private int nextOrdinal;
+    private long totalLength;
+
+    private final ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(Accumulator::new);
+
+    /**
+     * Construye el índice a partir de una lista de productos
+     */
+    public static TextIndex of(List<Product> products) {
+        TextIndex index = new TextIndex();
+        for (Product product : products) {
+            index.put(product);
+        }
+        return index;
+    }
+
+    /**
+     * Busca los k productos más relevantes para la consulta
+     * @return Los resultados de mayor a menor puntaje
+     */
+    public List<Hit> search(String query, int k) {
+        Set<String> terms = new LinkedHashSet<>(SpanishAnalyzer.analyze(query));
+        if (terms.isEmpty() || k <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int documents = ordinalById.size();
+            if (documents == 0) return List.of();
+            double averageLength = (double) totalLength / documents;
+
+            Accumulator acc = accumulators.get();
+            if (acc.scores.length < nextOrdinal) {
+                acc.scores = new double[idByOrdinal.length];
+                acc.touched = new int[idByOrdinal.length];
+            }
+            acc.touchedCount = 0;
+            try {
+                for (String term : terms) {
+                    Postings list = postings.get(term);
+                    if (list == null) continue;
+                    double idf = Math.log(1 + (documents - list.size + 0.5) / (list.size + 0.5));
+                    for (int i = 0; i < list.size; i++) {
+                        int ordinal = list.ids[i];
+                        int tf = list.freqs[i];
+                        double norm = K1 * (1 - B + B * lengthByOrdinal[ordinal] / averageLength);
+                        if (acc.scores[ordinal] == 0) {
+                            acc.touched[acc.touchedCount++] = ordinal;
+                        }
+                        acc.scores[ordinal] += idf * tf * (K1 + 1) / (tf + norm);
+                    }
+                }
+                return topK(acc, k);
+            } finally {
+                for (int i = 0; i < acc.touchedCount; i++) {
+                    acc.scores[acc.touched[i]] = 0;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registra un producto nuevo o actualizado
+     */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            unindex(product.getId());
+            index(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto eliminado
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Product product) {
+        Map<String, Integer> freqs = new HashMap<>();
+        for (String term : SpanishAnalyzer.analyze(product.getName())) {
+            freqs.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : SpanishAnalyzer.analyze(product.getCategory())) {
+            freqs.merge(term, 1, Integer::sum);
+        }
+        int ordinal = allocateOrdinal(product.getId());
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Postings()).put(ordinal, entry.getValue());
+            length += entry.getValue();
+        }
+        termsById.put(product.getId(), freqs.keySet());
+        lengthByOrdinal[ordinal] = length;
+        totalLength += length;
+    }
+
+    private void unindex(int id) {
+        Set<String> terms = termsById.remove(id);
+        if (terms == null) return;
+        int ordinal = ordinalById.remove(id);
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            list.remove(ordinal);
+            if (list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengthByOrdinal[ordinal];
+        lengthByOrdinal[ordinal] = 0;
+        if (freeCount == freeOrdinals.length) {
+            freeOrdinals = Arrays.copyOf(freeOrdinals, Math.max(8, freeCount * 2));
+        }
+        freeOrdinals[freeCount++] = ordinal;
+    }
+
+    /**
+     * Asigna un ordinal al producto, reutilizando los de productos eliminados
+     */
+    private int allocateOrdinal(int id) {
+        int ordinal;
+        if (freeCount > 0) {
+            ordinal = freeOrdinals[--freeCount];
+        } else {
+            ordinal = nextOrdinal++;
+            if (ordinal == idByOrdinal.length) {
+                idByOrdinal = Arrays.copyOf(idByOrdinal, ordinal * 2);
+                lengthByOrdinal = Arrays.copyOf(lengthByOrdinal, ordinal * 2);
+            }
+        }
+        idByOrdinal[ordinal] = id;
+        ordinalById.put(id, ordinal);
+        return ordinal;
+    }
+
+    private List<Hit> topK(Accumulator acc, int k) {
+        // Heap de mínimos con los k mejores; empates por ID menor
+        Comparator<Hit> order = (a, b) -> a.score != b.score
+                ? Double.compare(a.score, b.score)
+                : Integer.compare(b.productId, a.productId);
+        PriorityQueue<Hit> heap = new PriorityQueue<>(k + 1, order);
+        for (int i = 0; i < acc.touchedCount; i++) {
+            int ordinal = acc.touched[i];
+            double score = acc.scores[ordinal];
+            if (heap.size() == k) {
+                Hit worst = heap.peek();
+                if (score < worst.score) continue;
+                Hit hit = new Hit(idByOrdinal[ordinal], score);
+                if (order.compare(hit, worst) <= 0) continue;
+                heap.poll();
+                heap.add(hit);
+            } else {
+                heap.add(new Hit(idByOrdinal[ordinal], score));
+            }
+        }
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(order.reversed());
+        return hits;
+    }
+}
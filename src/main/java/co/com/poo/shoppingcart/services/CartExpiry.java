@@ -0,0 +1,191 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.repositories.CartRepository;
+import co.com.poo.shoppingcart.util.HashedTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expiración de carritos abandonados.
+ *
+ * Cada carrito que entra a memoria programa un temporizador en una rueda de
+ * temporizadores (HashedTimingWheel), así programar millones de expiraciones
+ * cuesta O(1) cada una. Los accesos no reprograman nada: cuando el
+ * temporizador vence se revisa el último acceso y, si el carrito se usó
+ * después, se vuelve a programar por el tiempo que le falta.
+ *
+ * Los carritos vencidos salen de memoria y se borran de la base de datos por
+ * lotes con DELETE masivos. Un barrido periódico borra también las filas de
+ * carritos que nunca se cargaron a memoria (por ejemplo, de antes de reiniciar).
+ */
+@Component
+public class CartExpiry {
+
+    @Value("${cart.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cart.expiry.ttl-ms:1800000}")
+    private long ttlMs;
+
+    @Value("${cart.expiry.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${cart.expiry.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${cart.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cart.expiry.sweep-interval-ms:300000}")
+    private long sweepIntervalMs;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartWriteBehind writeBehind;
+
+    @Autowired
+    private CartViewCache cartViewCache;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Counter expirations;
+    private final Counter rescheduled;
+    private final Counter evictions;
+    private final Counter deletedRows;
+
+    private HashedTimingWheel<String> wheel;
+    private ScheduledExecutorService executor;
+
+    public CartExpiry(MeterRegistry meterRegistry) {
+        this.expirations = Counter.builder("cart.expiry.expirations")
+                .description("Temporizadores de expiración vencidos")
+                .register(meterRegistry);
+        this.rescheduled = Counter.builder("cart.expiry.rescheduled")
+                .description("Temporizadores reprogramados porque el carrito se usó")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cart.expiry.evictions")
+                .description("Carritos abandonados sacados de memoria")
+                .register(meterRegistry);
+        this.deletedRows = Counter.builder("cart.expiry.deleted")
+                .description("Carritos abandonados borrados de la base de datos")
+                .register(meterRegistry);
+        meterRegistry.gauge("cart.expiry.scheduled", this, e -> e.wheel == null ? 0 : e.wheel.size());
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        wheel = new HashedTimingWheel<>(wheelSize, TimeUnit.MILLISECONDS.toNanos(tickMs));
+        cartStore.setLoadListener(customerId -> wheel.schedule(customerId, TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cart-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::tickQuietly, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::sweepQuietly, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Procesa los temporizadores vencidos y borra por lotes los carritos abandonados
+     */
+    void tick() {
+        long now = System.nanoTime();
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(customerId -> {
+            expirations.increment();
+            long lastAccess = cartStore.lastAccess(customerId);
+            if (lastAccess == -1) return; // Ya no está en memoria
+            long remaining = lastAccess + ttlNanos - now;
+            if (remaining > 0) {
+                wheel.schedule(customerId, remaining);
+                rescheduled.increment();
+            } else if (cartStore.removeIfIdle(customerId, now - ttlNanos)) {
+                writeBehind.discard(customerId);
+                cartViewCache.evict(customerId);
+                evictions.increment();
+                expired.add(customerId);
+            }
+        });
+
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            deleteCarts(expired.subList(from, Math.min(from + batchSize, expired.size())));
+        }
+    }
+
+    /**
+     * Borra de la base de datos los carritos inactivos que no están en memoria
+     */
+    void sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMs));
+        while (true) {
+            List<String> idle = cartRepository.findIdleCustomerIds(cutoff, PageRequest.of(0, batchSize));
+            List<String> cold = new ArrayList<>(idle.size());
+            for (String customerId : idle) {
+                if (!cartStore.contains(customerId)) {
+                    cold.add(customerId);
+                }
+            }
+            if (!cold.isEmpty()) {
+                deleteCarts(cold);
+            }
+            // Si todo el lote estaba en memoria no se avanza; se reintenta en el próximo barrido
+            if (idle.size() < batchSize || cold.isEmpty()) break;
+        }
+    }
+
+    private void deleteCarts(List<String> customerIds) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            cartRepository.deleteItemsByCustomerIds(customerIds);
+            return cartRepository.deleteByCustomerIds(customerIds);
+        });
+        if (deleted != null) {
+            deletedRows.increment(deleted);
+        }
+    }
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            System.err.println("Error al expirar carritos: " + e.getMessage());
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            System.err.println("Error al borrar carritos inactivos: " + e.getMessage());
+        }
+    }
+}
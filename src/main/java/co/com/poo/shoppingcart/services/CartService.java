@@ -3,96 +3,583 @@ package co.com.poo.shoppingcart.services;
 import co.com.poo.shoppingcart.entities.CartEntity;
 import co.com.poo.shoppingcart.entities.CartItemEntity;
 import co.com.poo.shoppingcart.entities.ProductEntity;
+import co.com.poo.shoppingcart.exception.CartVersionMismatchException;
+import co.com.poo.shoppingcart.exception.InsufficientStockException;
 import co.com.poo.shoppingcart.repositories.CartRepository;
 import co.com.poo.shoppingcart.repositories.ProductRepository;
 import co.com.poo.shoppingcart.model.Cart;
 import co.com.poo.shoppingcart.model.CartItem;
+import co.com.poo.shoppingcart.model.CartOperation;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * Service que maneja la lógica del carrito de compras
+ * Service que maneja la lógica del carrito de compras.
+ *
+ * Cada cliente tiene su propio carrito. Los carritos en uso viven en el
+ * CartStore: las lecturas y modificaciones trabajan sobre la copia en memoria
+ * y la base de datos solo se consulta la primera vez que se carga un carrito.
+ * Los productos de las líneas se refrescan desde ProductService (caché) en
+ * cada acceso: un cambio de precio o nombre llega a los carritos cargados y
+ * un producto eliminado sale del carrito (liberando su reserva).
+ * Con el modo write-behind activo los cambios se guardan por lotes (ver CartWriteBehind).
+ *
+ * Cada cambio de cantidad reserva o libera el stock correspondiente (ver
+ * StockReservations) antes de modificar el carrito.
  */
 @Service
 public class CartService {
 
+    /**
+     * Cliente usado cuando la petición no indica uno
+     */
+    public static final String DEFAULT_CUSTOMER_ID = "default";
+
     @Autowired
     private CartRepository cartRepository;
 
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartWriteBehind writeBehind;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @PostConstruct
+    void registerFlusher() {
+        writeBehind.setFlusher(this::flushCarts);
+    }
+
+    /**
+     * Al apagar la aplicación se guardan los carritos pendientes
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        writeBehind.shutdown();
+    }
+
     /**
-     * Obtiene o crea el carrito actual
-     * Por simplicidad, manejamos un solo carrito (ID = 1)
+     * Obtiene el carrito del cliente por defecto
      */
     public Cart getCurrentCart() {
-        CartEntity entity = cartRepository.findById(1L)
-                .orElseGet(() -> {
-                    CartEntity newCart = new CartEntity();
-                    newCart.setCustomerName("Default Customer");
-                    newCart.setItems(new ArrayList<>());
-                    return cartRepository.save(newCart);
-                });
-        return entityToModel(entity);
+        return getCurrentCart(DEFAULT_CUSTOMER_ID);
+    }
+
+    /**
+     * Obtiene el carrito de un cliente (vacío si aún no tiene uno)
+     * @param customerId ID del cliente
+     * @return Una copia del carrito actual
+     */
+    public Cart getCurrentCart(String customerId) {
+        return withFreshCart(customerId, Cart::copy);
+    }
+
+    /**
+     * Versión actual del carrito del cliente, sin copiarlo
+     */
+    public long getCartVersion(String customerId) {
+        return withFreshCart(customerId, Cart::getVersion);
     }
 
     /**
-     * Guarda el carrito en la base de datos
+     * Guarda el carrito del cliente por defecto
      */
     public void saveCart(Cart cart) {
-        CartEntity entity = modelToEntity(cart);
-        cartRepository.save(entity);
+        saveCart(DEFAULT_CUSTOMER_ID, cart);
     }
 
     /**
-     * Agrega un producto al carrito
+     * Reemplaza el contenido del carrito del cliente y lo guarda en la base de datos.
+     * Las reservas de stock se ajustan a las nuevas cantidades (todo o nada).
+     * @param customerId ID del cliente
+     * @param cart Nuevo contenido del carrito
+     * @throws InsufficientStockException si algún producto no alcanza; el carrito no cambia
      */
-    public Cart addProductToCart(Long productId, Integer quantity) {
-        CartEntity cartEntity = cartRepository.findById(1L)
-                .orElseGet(() -> {
-                    CartEntity newCart = new CartEntity();
-                    newCart.setCustomerName("Default Customer");
-                    newCart.setItems(new ArrayList<>());
-                    return cartRepository.save(newCart);
-                });
+    public void saveCart(String customerId, Cart cart) {
+        cartStore.withCart(customerId, this::loadCart, current -> {
+            if (current != cart) {
+                replaceItems(customerId, current, cart.getItems());
+            }
+            persist(customerId, current);
+            return null;
+        });
+    }
 
-        ProductEntity product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+    /**
+     * Deja en el carrito exactamente esas líneas. Primero se reservan las
+     * cantidades que suben (si una no alcanza se devuelven las ya tomadas) y
+     * después se liberan las que bajan o salen, que no pueden fallar.
+     */
+    private void replaceItems(String customerId, Cart current, List<CartItem> items) {
+        Map<Integer, Integer> previous = new HashMap<>();
+        for (CartItem item : current.getItems()) {
+            previous.put(item.getProductId(), item.getQuantity());
+        }
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
 
-        // Buscar si el producto ya está en el carrito
-        CartItemEntity existingItem = cartEntity.getItems().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst()
-                .orElse(null);
+        Map<Integer, Integer> raised = new HashMap<>();
+        try {
+            for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                int before = previous.getOrDefault(line.getKey(), 0);
+                if (line.getValue() > before) {
+                    reserve(customerId, line.getKey(), line.getValue());
+                    raised.put(line.getKey(), before);
+                }
+            }
+        } catch (InsufficientStockException e) {
+            raised.forEach((productId, before) -> stockReservations.hold(customerId, productId, before));
+            throw e;
+        }
+        for (Map.Entry<Integer, Integer> line : previous.entrySet()) {
+            int after = quantities.getOrDefault(line.getKey(), 0);
+            if (after < line.getValue()) {
+                stockReservations.hold(customerId, line.getKey(), after);
+            }
+        }
 
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + quantity);
-        } else {
-            CartItemEntity newItem = new CartItemEntity();
-            newItem.setProduct(product);
-            newItem.setQuantity(quantity);
-            newItem.setCart(cartEntity);
-            cartEntity.getItems().add(newItem);
+        current.clear();
+        for (CartItem item : items) {
+            current.addItem(new CartItem(item.getProduct(), item.getQuantity()));
+        }
+    }
+
+    /**
+     * Agrega un producto al carrito del cliente
+     * @param expectedVersion Versión que el cliente cree que tiene el carrito (null = sin verificar)
+     * @return Una copia del carrito actualizado
+     * @throws CartVersionMismatchException si la versión no coincide
+     * @throws InsufficientStockException si no hay stock para la nueva cantidad
+     */
+    public Cart addProductToCart(String customerId, Long productId, Integer quantity, Long expectedVersion) {
+        Product model = productService.getProductById(productId);
+        if (model == null) {
+            throw new RuntimeException("Producto no encontrado");
+        }
+
+        return withFreshCart(customerId, cart -> {
+            checkVersion(cart, expectedVersion);
+            CartItem existing = cart.findItem(model.getId());
+            reserve(customerId, model.getId(), (existing == null ? 0 : existing.getQuantity()) + quantity);
+            cart.addItem(new CartItem(model, quantity));
+            persist(customerId, cart);
+            return cart.copy();
+        });
+    }
+
+    /**
+     * Cambia la cantidad de un producto que ya está en el carrito
+     * @param expectedVersion Versión que el cliente cree que tiene el carrito (null = sin verificar)
+     * @return Una copia del carrito actualizado, o null si el producto no está en el carrito
+     * @throws CartVersionMismatchException si la versión no coincide
+     * @throws InsufficientStockException si no hay stock para la nueva cantidad
+     */
+    public Cart updateQuantity(String customerId, Long productId, Integer quantity, Long expectedVersion) {
+        if (!isProductId(productId)) {
+            return null;
         }
+        return withFreshCart(customerId, cart -> {
+            checkVersion(cart, expectedVersion);
+            if (cart.findItem(productId.intValue()) == null) {
+                return null;
+            }
+            reserve(customerId, productId.intValue(), quantity);
+            cart.updateItem(productId.intValue(), quantity);
+            persist(customerId, cart);
+            return cart.copy();
+        });
+    }
 
-        cartRepository.save(cartEntity);
-        return entityToModel(cartEntity);
+    /**
+     * Elimina un producto del carrito
+     * @param expectedVersion Versión que el cliente cree que tiene el carrito (null = sin verificar)
+     * @return Una copia del carrito actualizado, o null si el producto no está en el carrito
+     * @throws CartVersionMismatchException si la versión no coincide
+     */
+    public Cart removeProduct(String customerId, Long productId, Long expectedVersion) {
+        if (!isProductId(productId)) {
+            return null;
+        }
+        return withFreshCart(customerId, cart -> {
+            checkVersion(cart, expectedVersion);
+            if (cart.findItem(productId.intValue()) == null) {
+                return null;
+            }
+            stockReservations.hold(customerId, productId.intValue(), 0);
+            cart.removeItem(productId.intValue());
+            persist(customerId, cart);
+            return cart.copy();
+        });
     }
 
     /**
-     * Limpia el carrito
+     * Aplica un lote de operaciones al carrito en orden, dentro de un único acceso
+     * al carrito y con una sola escritura al final.
+     * Los productos de todas las operaciones ADD se buscan juntos (caché y un solo findAllById).
+     * Una operación inválida no detiene las demás; su resultado queda en la operación.
+     * @param expectedVersion Versión que el cliente cree que tiene el carrito (null = sin verificar)
+     * @return Una copia del carrito resultante
+     * @throws CartVersionMismatchException si la versión no coincide (no se aplica nada)
+     */
+    public Cart applyBatch(String customerId, List<CartOperation> operations, Long expectedVersion) {
+        Set<Long> productIds = new HashSet<>();
+        for (CartOperation operation : operations) {
+            if (operation.getType() == CartOperation.Type.ADD) {
+                productIds.add((long) operation.getProductId());
+            }
+        }
+        Map<Integer, Product> products = productIds.isEmpty()
+                ? Map.of()
+                : productService.getProductsById(productIds);
+
+        return withFreshCart(customerId, cart -> {
+            checkVersion(cart, expectedVersion);
+            boolean changed = false;
+            for (CartOperation operation : operations) {
+                changed |= apply(customerId, cart, operation, products);
+            }
+            if (changed) {
+                persist(customerId, cart);
+            }
+            return cart.copy();
+        });
+    }
+
+    private boolean apply(String customerId, Cart cart, CartOperation operation, Map<Integer, Product> products) {
+        int productId = operation.getProductId();
+        switch (operation.getType()) {
+            case ADD:
+                if (operation.getQuantity() <= 0) {
+                    operation.fail("INVALID_QUANTITY", "La cantidad debe ser mayor a 0");
+                    return false;
+                }
+                Product product = products.get(productId);
+                if (product == null) {
+                    operation.fail("PRODUCT_NOT_FOUND", "Producto con ID " + productId + " no encontrado");
+                    return false;
+                }
+                CartItem existing = cart.findItem(productId);
+                if (!hold(customerId, productId, (existing == null ? 0 : existing.getQuantity()) + operation.getQuantity(), operation)) {
+                    return false;
+                }
+                cart.addItem(new CartItem(product, operation.getQuantity()));
+                break;
+            case UPDATE:
+                if (operation.getQuantity() <= 0) {
+                    operation.fail("INVALID_QUANTITY", "La cantidad debe ser mayor a 0");
+                    return false;
+                }
+                if (cart.findItem(productId) == null) {
+                    operation.fail("PRODUCT_NOT_FOUND", "Producto no encontrado en el carrito");
+                    return false;
+                }
+                if (!hold(customerId, productId, operation.getQuantity(), operation)) {
+                    return false;
+                }
+                cart.updateItem(productId, operation.getQuantity());
+                break;
+            case REMOVE:
+                if (cart.findItem(productId) == null) {
+                    operation.fail("PRODUCT_NOT_FOUND", "Producto no encontrado en el carrito");
+                    return false;
+                }
+                stockReservations.hold(customerId, productId, 0);
+                cart.removeItem(productId);
+                break;
+        }
+        operation.succeed();
+        return true;
+    }
+
+    /**
+     * Ejecuta una acción sobre el carrito del cliente con acceso exclusivo,
+     * después de refrescar los productos de sus líneas
+     */
+    private <T> T withFreshCart(String customerId, Function<Cart, T> action) {
+        return cartStore.withCart(customerId, this::loadCart, cart -> {
+            if (refreshProducts(customerId, cart)) {
+                persist(customerId, cart);
+            }
+            return action.apply(cart);
+        });
+    }
+
+    /**
+     * Trae la versión vigente de los productos del carrito (de la caché, o de la
+     * base de datos si no están): actualiza precio y nombre de cada línea y
+     * quita las de productos que ya no existen.
+     * @return true si el carrito cambió
+     */
+    private boolean refreshProducts(String customerId, Cart cart) {
+        if (cart.isEmpty()) return false;
+        List<CartItem> items = cart.getItems();
+        Set<Long> ids = new HashSet<>();
+        for (CartItem item : items) {
+            ids.add(item.getProductId().longValue());
+        }
+        Map<Integer, Product> current = productService.getProductsById(ids);
+        boolean changed = false;
+        for (CartItem item : items) {
+            Product product = current.get(item.getProductId());
+            if (product == null) {
+                stockReservations.hold(customerId, item.getProductId(), 0);
+                cart.removeItem(item.getProductId());
+                changed = true;
+            } else {
+                changed |= cart.refreshProduct(product);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Las líneas del carrito se indexan por int: un ID fuera de ese rango no
+     * puede estar en el carrito (truncarlo apuntaría a otro producto)
+     */
+    private static boolean isProductId(Long productId) {
+        return productId != null && productId > 0 && productId <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Reserva el stock para la nueva cantidad de una línea del carrito
+     * @throws InsufficientStockException si no alcanza
+     */
+    private void reserve(String customerId, int productId, int quantity) {
+        if (!stockReservations.hold(customerId, productId, quantity)) {
+            Integer available = stockReservations.availableFor(customerId, productId);
+            throw new InsufficientStockException(productId, available == null ? 0 : available);
+        }
+    }
+
+    /**
+     * Igual que reserve, pero deja la falla en la operación del lote
+     */
+    private boolean hold(String customerId, int productId, int quantity, CartOperation operation) {
+        if (stockReservations.hold(customerId, productId, quantity)) {
+            return true;
+        }
+        Integer available = stockReservations.availableFor(customerId, productId);
+        operation.fail("INSUFFICIENT_STOCK",
+                new InsufficientStockException(productId, available == null ? 0 : available).getMessage());
+        return false;
+    }
+
+    /**
+     * Limpia el carrito del cliente por defecto
      */
     public void clearCart() {
-        CartEntity cartEntity = cartRepository.findById(1L).orElse(null);
-        if (cartEntity != null) {
-            cartEntity.getItems().clear();
-            cartRepository.save(cartEntity);
+        clearCart(DEFAULT_CUSTOMER_ID);
+    }
+
+    /**
+     * Limpia el carrito del cliente
+     */
+    public void clearCart(String customerId) {
+        clearCart(customerId, null);
+    }
+
+    /**
+     * Limpia el carrito del cliente verificando su versión
+     * @return Una copia del carrito (vacío)
+     * @throws CartVersionMismatchException si la versión no coincide
+     */
+    public Cart clearCart(String customerId, Long expectedVersion) {
+        return cartStore.withCart(customerId, this::loadCart, cart -> {
+            checkVersion(cart, expectedVersion);
+            cart.clear();
+            stockReservations.releaseAll(customerId);
+            persist(customerId, cart);
+            return cart.copy();
+        });
+    }
+
+    /**
+     * Cierra la compra con el carrito bloqueado: la acción crea la orden (y
+     * confirma el stock) y, si devuelve una, el carrito se vacía y se liberan
+     * las reservas que hayan quedado, sin que otra operación se meta en medio.
+     * Si la acción lanza una excepción el carrito no cambia.
+     * @param order Crea la orden a partir del carrito (null si no hay orden)
+     * @return La orden creada
+     */
+    public <T> T checkout(String customerId, Function<Cart, T> order) {
+        return withFreshCart(customerId, cart -> {
+            T created = order.apply(cart);
+            if (created != null) {
+                cart.clear();
+                stockReservations.releaseAll(customerId);
+                persist(customerId, cart);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Control de concurrencia optimista: si el cliente envió una versión y no es
+     * la actual, se rechaza el cambio devolviendo el carrito vigente.
+     */
+    private void checkVersion(Cart cart, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != cart.getVersion()) {
+            throw new CartVersionMismatchException(cart.copy());
+        }
+    }
+
+    /**
+     * Guarda de inmediato los cambios pendientes del carrito del cliente.
+     * Se usa cuando el carrito debe quedar persistido (por ejemplo, en el checkout).
+     */
+    public void flushCart(String customerId) {
+        writeBehind.flush(customerId);
+    }
+
+    // ============ PERSISTENCIA ============
+
+    /**
+     * Carga el carrito del cliente desde la base de datos.
+     * Si el cliente no tiene carrito se devuelve uno vacío; la fila se crea al guardar.
+     */
+    private Cart loadCart(String customerId) {
+        Cart cart = cartRepository.findByCustomerId(customerId)
+                .map(this::entityToModel)
+                .orElseGet(Cart::new);
+        // Versión inicial aleatoria: un ETag emitido antes de recargar el carrito no vuelve a coincidir
+        cart.setVersion(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE / 2));
+        return cart;
+    }
+
+    private void persist(String customerId, Cart cart) {
+        if (writeBehind.isEnabled()) {
+            writeBehind.markDirty(customerId);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> writeCarts(Map.of(customerId, cart)));
+        }
+    }
+
+    /**
+     * Escribe un lote de carritos pendientes en una sola transacción.
+     * El contenido se copia bajo el lock de cada carrito y se guarda fuera de él.
+     */
+    private void flushCarts(List<String> customerIds) {
+        Map<String, Cart> snapshots = new LinkedHashMap<>();
+        for (String customerId : customerIds) {
+            // Si el carrito expiró ya no hay nada que guardar
+            Cart snapshot = cartStore.ifPresent(customerId, Cart::copy);
+            if (snapshot != null) {
+                snapshots.put(customerId, snapshot);
+            }
+        }
+        if (snapshots.isEmpty()) return;
+        transactionTemplate.executeWithoutResult(status -> writeCarts(snapshots));
+    }
+
+    /**
+     * Guarda los carritos comparándolos con lo que ya hay en la base de datos:
+     * solo se insertan las líneas nuevas, se actualizan las cantidades que
+     * cambiaron y se borran las líneas eliminadas (orphanRemoval).
+     * Los carritos y los productos de las líneas nuevas se leen con una
+     * consulta cada uno, sin importar cuántos carritos o líneas haya.
+     * Debe llamarse dentro de una transacción.
+     */
+    private void writeCarts(Map<String, Cart> carts) {
+        Map<String, CartEntity> entities = new HashMap<>();
+        for (CartEntity entity : cartRepository.findByCustomerIdIn(carts.keySet())) {
+            entities.put(entity.getCustomerId(), entity);
+        }
+
+        // Productos que aún no tienen línea en la base de datos
+        Set<Long> newProductIds = new HashSet<>();
+        for (Map.Entry<String, Cart> entry : carts.entrySet()) {
+            Set<Long> stored = new HashSet<>();
+            CartEntity entity = entities.get(entry.getKey());
+            if (entity != null) {
+                for (CartItemEntity row : entity.getItems()) {
+                    stored.add(row.getProduct().getId());
+                }
+            }
+            for (CartItem item : entry.getValue().getItems()) {
+                Long productId = item.getProductId().longValue();
+                if (!stored.contains(productId)) {
+                    newProductIds.add(productId);
+                }
+            }
+        }
+        Map<Long, ProductEntity> products = new HashMap<>();
+        if (!newProductIds.isEmpty()) {
+            for (ProductEntity product : productRepository.findAllById(newProductIds)) {
+                products.put(product.getId(), product);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<String, Cart> entry : carts.entrySet()) {
+            CartEntity entity = entities.get(entry.getKey());
+            if (entity == null) {
+                entity = new CartEntity();
+                entity.setCustomerId(entry.getKey());
+                entity.setCustomerName(entry.getKey());
+                entity.setUpdatedAt(now);
+                applyDiff(entity, entry.getValue(), products);
+                cartRepository.save(entity);
+            } else {
+                entity.setUpdatedAt(now);
+                applyDiff(entity, entry.getValue(), products);
+            }
+        }
+    }
+
+    private void applyDiff(CartEntity entity, Cart model, Map<Long, ProductEntity> products) {
+        Map<Long, CartItemEntity> stored = new HashMap<>();
+        for (CartItemEntity row : entity.getItems()) {
+            stored.put(row.getProduct().getId(), row);
+        }
+
+        for (CartItem item : model.getItems()) {
+            CartItemEntity row = stored.remove(item.getProductId().longValue());
+            if (row == null) {
+                ProductEntity product = products.get(item.getProductId().longValue());
+                if (product == null) continue; // El producto fue eliminado del catálogo
+                row = new CartItemEntity();
+                row.setProduct(product);
+                row.setQuantity(item.getQuantity());
+                row.setCart(entity);
+                entity.getItems().add(row);
+            } else if (!row.getQuantity().equals(item.getQuantity())) {
+                row.setQuantity(item.getQuantity());
+            }
+        }
+
+        // Lo que quedó en el mapa ya no está en el carrito
+        if (!stored.isEmpty()) {
+            Set<CartItemEntity> removed = new HashSet<>(stored.values());
+            entity.getItems().removeIf(removed::contains);
         }
     }
 
@@ -101,17 +588,7 @@ public class CartService {
     private Cart entityToModel(CartEntity entity) {
         Cart cart = new Cart();
         List<CartItem> items = entity.getItems().stream()
-                .map(itemEntity -> {
-                    ProductEntity p = itemEntity.getProduct();
-                    Product product = new Product(
-                            p.getId().intValue(),
-                            p.getName(),
-                            p.getDescription(),  // description mapeada como category
-                            p.getPrice(),
-                            p.getStock()
-                    );
-                    return new CartItem(product, itemEntity.getQuantity());
-                })
+                .map(itemEntity -> new CartItem(productToModel(itemEntity.getProduct()), itemEntity.getQuantity()))
                 .collect(Collectors.toList());
 
         for (CartItem item : items) {
@@ -120,23 +597,13 @@ public class CartService {
         return cart;
     }
 
-    private CartEntity modelToEntity(Cart model) {
-        CartEntity entity = cartRepository.findById(1L).orElseGet(CartEntity::new);
-        entity.setCustomerName("Default Customer");
-
-        List<CartItemEntity> itemEntities = model.getItems().stream()
-                .map(item -> {
-                    CartItemEntity itemEntity = new CartItemEntity();
-                    ProductEntity product = productRepository.findById(item.getProduct().getId().longValue())
-                            .orElseThrow();
-                    itemEntity.setProduct(product);
-                    itemEntity.setQuantity(item.getQuantity());
-                    itemEntity.setCart(entity);
-                    return itemEntity;
-                })
-                .collect(Collectors.toList());
-
-        entity.setItems(itemEntities);
-        return entity;
+    private Product productToModel(ProductEntity p) {
+        return new Product(
+                p.getId().intValue(),
+                p.getName(),
+                p.getDescription(),  // description mapeada como category
+                Money.fromDecimal(p.getPrice()),
+                p.getStock()
+        );
     }
 }
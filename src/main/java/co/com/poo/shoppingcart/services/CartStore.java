@@ -0,0 +1,173 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.model.Cart;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Almacén en memoria de los carritos "calientes", indexados por cliente.
+ *
+ * Los carritos se reparten en varios shards para que clientes distintos no
+ * compitan por la misma estructura. Cada carrito se usa siempre bajo su propio
+ * monitor, así dos peticiones del mismo cliente no se pisan y las de clientes
+ * diferentes corren en paralelo.
+ * También se guarda el último acceso de cada carrito para poder expirarlo.
+ */
+@Component
+public class CartStore {
+
+    private static final int SHARD_COUNT = 16;
+
+    /**
+     * Carrito en memoria con su último acceso
+     */
+    private static final class Entry {
+        final Cart cart;
+        volatile long lastAccess = System.nanoTime();
+        boolean removed; // se lee y escribe bajo el monitor del carrito
+
+        Entry(Cart cart) {
+            this.cart = cart;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry>[] shards;
+
+    private Consumer<String> loadListener = customerId -> { };
+
+    public CartStore() {
+        shards = newShards(SHARD_COUNT);
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    // Java no crea arreglos de un tipo genérico: se crea con comodín y se convierte una sola vez
+    @SuppressWarnings("unchecked")
+    private static ConcurrentHashMap<String, Entry>[] newShards(int count) {
+        return (ConcurrentHashMap<String, Entry>[]) new ConcurrentHashMap<?, ?>[count];
+    }
+
+    /**
+     * Registra una función que se llama cada vez que se carga un carrito a memoria
+     */
+    public void setLoadListener(Consumer<String> loadListener) {
+        this.loadListener = loadListener;
+    }
+
+    /**
+     * Ejecuta una acción sobre el carrito del cliente con acceso exclusivo.
+     * Si el carrito no está en memoria se carga con el loader; si dos hilos lo
+     * cargan a la vez, todos usan la primera copia que entra al almacén.
+     * @param customerId ID del cliente (o sesión)
+     * @param loader Función que carga el carrito desde la base de datos
+     * @param action Acción a ejecutar sobre el carrito
+     * @return El resultado de la acción
+     */
+    public <T> T withCart(String customerId, Function<String, Cart> loader, Function<Cart, T> action) {
+        ConcurrentHashMap<String, Entry> shard = shardFor(customerId);
+        while (true) {
+            Entry entry = shard.get(customerId);
+            if (entry == null) {
+                entry = load(shard, customerId, loader);
+            }
+            synchronized (entry.cart) {
+                // Si expiró mientras esperábamos el lock, se vuelve a cargar
+                if (entry.removed) continue;
+                entry.lastAccess = System.nanoTime();
+                return action.apply(entry.cart);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una acción sobre el carrito solo si está en memoria, sin cargarlo
+     * ni contarlo como acceso (por ejemplo, para guardarlo en segundo plano).
+     * @return El resultado de la acción, o null si el carrito no está en memoria
+     */
+    public <T> T ifPresent(String customerId, Function<Cart, T> action) {
+        Entry entry = shardFor(customerId).get(customerId);
+        if (entry == null) return null;
+        synchronized (entry.cart) {
+            return entry.removed ? null : action.apply(entry.cart);
+        }
+    }
+
+    /**
+     * @return Momento (System.nanoTime) del último acceso al carrito, o -1 si no está en memoria
+     */
+    public long lastAccess(String customerId) {
+        Entry entry = shardFor(customerId).get(customerId);
+        return entry == null ? -1 : entry.lastAccess;
+    }
+
+    /**
+     * Saca el carrito de memoria solo si no se ha usado desde el instante indicado.
+     * @param idleSince Instante (System.nanoTime) límite de inactividad
+     * @return true si el carrito se sacó de memoria
+     */
+    public boolean removeIfIdle(String customerId, long idleSince) {
+        ConcurrentHashMap<String, Entry> shard = shardFor(customerId);
+        Entry entry = shard.get(customerId);
+        if (entry == null) return false;
+        synchronized (entry.cart) {
+            if (entry.removed || entry.lastAccess - idleSince > 0) return false;
+            entry.removed = true;
+            shard.remove(customerId, entry);
+            return true;
+        }
+    }
+
+    /**
+     * Indica si el carrito del cliente ya está cargado en memoria
+     */
+    public boolean contains(String customerId) {
+        return shardFor(customerId).containsKey(customerId);
+    }
+
+    /**
+     * Saca el carrito del cliente de la memoria (la próxima lectura lo recarga)
+     */
+    public void evict(String customerId) {
+        Entry entry = shardFor(customerId).get(customerId);
+        if (entry == null) return;
+        synchronized (entry.cart) {
+            entry.removed = true;
+            shardFor(customerId).remove(customerId, entry);
+        }
+    }
+
+    /**
+     * Cantidad de carritos cargados en memoria
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Entry> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Carga el carrito fuera del mapa (el loader va a la base de datos y no debe
+     * bloquear el shard); si otro hilo lo cargó primero se usa el suyo.
+     */
+    private Entry load(ConcurrentHashMap<String, Entry> shard, String customerId, Function<String, Cart> loader) {
+        Entry loaded = new Entry(loader.apply(customerId));
+        Entry existing = shard.putIfAbsent(customerId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        loadListener.accept(customerId);
+        return loaded;
+    }
+
+    private ConcurrentHashMap<String, Entry> shardFor(String customerId) {
+        int h = customerId.hashCode();
+        h ^= (h >>> 16);
+        return shards[h & (SHARD_COUNT - 1)];
+    }
+}
@@ -0,0 +1,64 @@
+package co.com.poo.shoppingcart.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Guarda, por cliente, la última respuesta JSON de GET /api/cart ya serializada
+ * junto con la versión del carrito a la que corresponde.
+ *
+ * Mientras el carrito no cambie, la vista se responde con estos bytes sin
+ * convertir a DTO ni volver a serializar.
+ */
+@Component
+public class CartViewCache {
+
+    /**
+     * Respuesta serializada de una versión específica del carrito
+     */
+    public static final class CachedView {
+        private final long version;
+        private final byte[] body;
+
+        public CachedView(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    private final Map<String, CachedView> views = new ConcurrentHashMap<>();
+
+    /**
+     * @return Los bytes guardados si corresponden a la versión indicada, si no null
+     */
+    public byte[] get(String customerId, long version) {
+        CachedView view = views.get(customerId);
+        return view != null && view.getVersion() == version ? view.getBody() : null;
+    }
+
+    /**
+     * Guarda la respuesta serializada de una versión del carrito.
+     * Si dos peticiones compiten y queda la más vieja no pasa nada: get compara la versión.
+     */
+    public void put(String customerId, long version, byte[] body) {
+        views.put(customerId, new CachedView(version, body));
+    }
+
+    public void evict(String customerId) {
+        views.remove(customerId);
+    }
+
+    public int size() {
+        return views.size();
+    }
+}
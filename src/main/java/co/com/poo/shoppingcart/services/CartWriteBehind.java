@@ -0,0 +1,181 @@
+package co.com.poo.shoppingcart.services;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Escritura diferida (write-behind) de los carritos.
+ *
+ * Las modificaciones solo marcan el carrito como "sucio"; un hilo en segundo
+ * plano los guarda por lotes cada cierto intervalo o cuando se acumulan
+ * suficientes. Varias modificaciones del mismo carrito antes de un flush
+ * terminan en una sola escritura.
+ *
+ * Las escrituras (lotes en segundo plano y flush de un carrito) se hacen de a
+ * una, bajo el monitor de esta clase.
+ */
+@Component
+public class CartWriteBehind {
+
+    @Value("${cart.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cart.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${cart.write-behind.batch-size:100}")
+    private int batchSize;
+
+    // Cliente -> momento (nanoTime) en que el carrito quedó sucio
+    private final Map<String, Long> dirty = new ConcurrentHashMap<>();
+
+    private final Timer flushLag;
+    private final DistributionSummary flushBatchSize;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private ScheduledExecutorService executor;
+    private Consumer<List<String>> flusher;
+
+    public CartWriteBehind(MeterRegistry meterRegistry) {
+        this.flushLag = Timer.builder("cart.writebehind.flush.lag")
+                .description("Tiempo entre la primera modificación de un carrito y su escritura")
+                .register(meterRegistry);
+        this.flushBatchSize = DistributionSummary.builder("cart.writebehind.flush.batch")
+                .description("Carritos escritos por lote")
+                .register(meterRegistry);
+        meterRegistry.gauge("cart.writebehind.pending", dirty, Map::size);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cart-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::flushAllQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra la función que escribe un lote de carritos en la base de datos
+     */
+    public void setFlusher(Consumer<List<String>> flusher) {
+        this.flusher = flusher;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Marca el carrito del cliente como pendiente de guardar.
+     * Si ya estaba pendiente no se hace nada (las escrituras se combinan).
+     */
+    public void markDirty(String customerId) {
+        dirty.putIfAbsent(customerId, System.nanoTime());
+        if (dirty.size() >= batchSize && executor != null && flushRequested.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                flushRequested.set(false);
+                flushAllQuietly();
+            });
+        }
+    }
+
+    /**
+     * Guarda de inmediato el carrito del cliente si tiene cambios pendientes.
+     * Usa el mismo monitor que flushAll: dos escrituras del mismo carrito nunca
+     * se cruzan (la segunda insertaría otra fila o chocaría con la primera).
+     */
+    public synchronized void flush(String customerId) {
+        Long since = dirty.remove(customerId);
+        if (since != null) {
+            write(List.of(customerId), List.of(since));
+        }
+    }
+
+    /**
+     * Descarta los cambios pendientes del carrito (por ejemplo, porque expiró y se va a borrar)
+     */
+    public void discard(String customerId) {
+        dirty.remove(customerId);
+    }
+
+    /**
+     * Guarda todos los carritos pendientes, lote por lote
+     */
+    public synchronized void flushAll() {
+        while (!dirty.isEmpty()) {
+            List<String> batch = new ArrayList<>(batchSize);
+            List<Long> since = new ArrayList<>(batchSize);
+            Iterator<Map.Entry<String, Long>> it = dirty.entrySet().iterator();
+            while (it.hasNext() && batch.size() < batchSize) {
+                Map.Entry<String, Long> entry = it.next();
+                it.remove();
+                batch.add(entry.getKey());
+                since.add(entry.getValue());
+            }
+            write(batch, since);
+        }
+    }
+
+    /**
+     * Detiene el hilo de escritura y guarda lo que quede pendiente
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(flushIntervalMs * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (flusher != null) {
+            flushAll();
+        }
+    }
+
+    private void write(List<String> batch, List<Long> since) {
+        try {
+            flusher.accept(batch);
+        } catch (RuntimeException e) {
+            // Si falla, los carritos vuelven a quedar pendientes para el próximo intento
+            for (int i = 0; i < batch.size(); i++) {
+                dirty.putIfAbsent(batch.get(i), since.get(i));
+            }
+            throw e;
+        }
+        long now = System.nanoTime();
+        for (Long start : since) {
+            flushLag.record(now - start, TimeUnit.NANOSECONDS);
+        }
+        flushBatchSize.record(batch.size());
+    }
+
+    private void flushAllQuietly() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            System.err.println("Error al guardar carritos pendientes: " + e.getMessage());
+        }
+    }
+}
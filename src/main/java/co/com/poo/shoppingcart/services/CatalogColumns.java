@@ -0,0 +1,69 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.service.ColumnarCatalog;
+import co.com.poo.shoppingcart.util.LazyIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Catálogo en columnas (ver ColumnarCatalog) para los filtros combinados de
+ * categoría, precio y stock.
+ *
+ * Igual que los demás índices del catálogo, se construye la primera vez que se
+ * usa (ver LazyIndex) y ProductService lo mantiene al crear, actualizar o
+ * eliminar productos.
+ */
+@Component
+public class CatalogColumns {
+
+    private final LazyIndex<ColumnarCatalog> catalog = new LazyIndex<>();
+
+    /**
+     * Construye el catálogo si aún no existe
+     * @param products Proveedor de todos los productos del catálogo
+     */
+    public void ensureLoaded(Supplier<List<Product>> products) {
+        catalog.ensureLoaded(() -> ColumnarCatalog.of(products.get()));
+    }
+
+    /**
+     * @return Los productos que cumplen el filtro, ordenados por precio
+     */
+    public List<Product> filter(CatalogFilter filter) {
+        ColumnarCatalog current = catalog.get();
+        return current == null ? List.of() : current.filter(filter);
+    }
+
+    /**
+     * @return Cuántos productos cumplen el filtro
+     */
+    public int count(CatalogFilter filter) {
+        ColumnarCatalog current = catalog.get();
+        return current == null ? 0 : current.count(filter);
+    }
+
+    /**
+     * Registra un producto nuevo o actualizado
+     */
+    public void put(Product product) {
+        catalog.apply(current -> current.put(product));
+    }
+
+    /**
+     * Quita un producto eliminado
+     */
+    public void remove(int id) {
+        catalog.apply(current -> current.remove(id));
+    }
+
+    /**
+     * Descarta el catálogo; se vuelve a construir en la próxima consulta
+     */
+    public void invalidate() {
+        catalog.invalidate();
+    }
+}
@@ -0,0 +1,61 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.FacetCounts;
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.service.FacetIndex;
+import co.com.poo.shoppingcart.util.LazyIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Facetas del catálogo (ver FacetIndex): conteos por categoría, histograma de
+ * precios y productos con stock para el filtro actual.
+ *
+ * Se construye la primera vez que se usa y ProductService lo mantiene al
+ * crear, actualizar o eliminar productos.
+ */
+@Component
+public class CatalogFacets {
+
+    private final LazyIndex<FacetIndex> index = new LazyIndex<>();
+
+    /**
+     * Construye el índice si aún no existe
+     * @param products Proveedor de todos los productos del catálogo
+     */
+    public void ensureLoaded(Supplier<List<Product>> products) {
+        index.ensureLoaded(() -> FacetIndex.of(products.get()));
+    }
+
+    /**
+     * @return Las facetas del filtro
+     */
+    public FacetCounts facets(CatalogFilter filter) {
+        FacetIndex current = index.get();
+        return current == null ? FacetCounts.empty() : current.facets(filter);
+    }
+
+    /**
+     * Registra un producto nuevo o actualizado
+     */
+    public void put(Product product) {
+        index.apply(current -> current.put(product));
+    }
+
+    /**
+     * Quita un producto eliminado
+     */
+    public void remove(int id) {
+        index.apply(current -> current.remove(id));
+    }
+
+    /**
+     * Descarta el índice; se vuelve a construir en la próxima consulta
+     */
+    public void invalidate() {
+        index.invalidate();
+    }
+}
@@ -1,6 +1,7 @@
 package co.com.poo.shoppingcart.services;
 
 import co.com.poo.shoppingcart.entities.OrderEntity;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Order;
 import co.com.poo.shoppingcart.repositories.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +22,7 @@ public class OrderService {
     public OrderEntity saveOrderSummary(String customerName, Order order) {
         OrderEntity entity = new OrderEntity();
         entity.setCustomerName(customerName != null ? customerName : "Default Customer");
-        entity.setTotal(order.getFinalTotal());
+        entity.setTotal(Money.toDecimal(order.getFinalTotal()));
         entity.setOrderDate(LocalDateTime.now());
         return orderRepository.save(entity);
     }
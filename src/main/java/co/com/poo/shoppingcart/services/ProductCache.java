@@ -0,0 +1,90 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.util.BoundedCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Caché de productos por ID delante de la base de datos (lectura a través).
+ *
+ * El catálogo se lee muchísimo más de lo que se escribe, así que cada
+ * producto se guarda ya convertido a modelo de dominio. ProductService la
+ * refresca al crear o actualizar y la invalida al eliminar.
+ * Los Product guardados se comparten entre peticiones: no deben modificarse.
+ *
+ * Estadísticas en /actuator/metrics: product.cache.hits, product.cache.misses,
+ * product.cache.evictions y product.cache.size.
+ */
+@Component
+public class ProductCache {
+
+    private final BoundedCache<Long, Product> cache;
+
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") int maximumSize, MeterRegistry meterRegistry) {
+        this.cache = new BoundedCache<>(maximumSize);
+        FunctionCounter.builder("product.cache.hits", cache, BoundedCache::hitCount)
+                .description("Lecturas de productos resueltas desde la caché")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.cache.misses", cache, BoundedCache::missCount)
+                .description("Lecturas de productos que fueron a la base de datos")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.cache.evictions", cache, BoundedCache::evictionCount)
+                .description("Productos sacados de la caché por falta de espacio")
+                .register(meterRegistry);
+        meterRegistry.gauge("product.cache.size", cache, BoundedCache::size);
+    }
+
+    public Product get(Long id, Function<Long, Product> loader) {
+        return cache.get(id, loader);
+    }
+
+    public Product getIfPresent(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * @return Época de escrituras actual (ver putLoaded)
+     */
+    public long epoch() {
+        return cache.epoch();
+    }
+
+    /**
+     * Guarda un producto leído de la base de datos, salvo que haya cambiado desde la época indicada
+     */
+    public void putLoaded(Product product, long epoch) {
+        cache.putIfCurrent(product.getId().longValue(), product, epoch);
+    }
+
+    public void put(Product product) {
+        cache.put(product.getId().longValue(), product);
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    /**
+     * Vacía la caché (por ejemplo, después de una importación masiva)
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    public long evictionCount() {
+        return cache.evictionCount();
+    }
+}
@@ -0,0 +1,77 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.exception.InvalidPageRequestException;
+import co.com.poo.shoppingcart.model.ProductSort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación por llave (keyset): la llave de orden y el ID del
+ * último producto entregado. Viaja al cliente como un token opaco
+ * (Base64 URL de "orden|id|valor"); el cliente solo debe devolverlo tal cual.
+ */
+public final class ProductCursor {
+
+    private final ProductSort sort;
+    private final long lastId;
+    private final BigDecimal lastPrice; // solo con orden PRICE
+    private final String lastName;      // solo con orden NAME
+
+    public ProductCursor(ProductSort sort, long lastId, BigDecimal lastPrice, String lastName) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastPrice = lastPrice;
+        this.lastName = lastName;
+    }
+
+    public ProductSort getSort() {
+        return sort;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public BigDecimal getLastPrice() {
+        return lastPrice;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String encode() {
+        String value = switch (sort) {
+            case ID -> "";
+            case PRICE -> lastPrice.toPlainString();
+            case NAME -> lastName;
+        };
+        String raw = sort.name() + "|" + lastId + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token Token recibido del cliente
+     * @param sort Orden pedido; el cursor debe haberse generado con el mismo orden
+     * @throws InvalidPageRequestException si el token no es válido
+     */
+    public static ProductCursor decode(String token, ProductSort sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || ProductSort.valueOf(parts[0]) != sort) {
+                throw new InvalidPageRequestException("El cursor no corresponde al orden " + sort.name().toLowerCase());
+            }
+            long lastId = Long.parseLong(parts[1]);
+            return switch (sort) {
+                case ID -> new ProductCursor(sort, lastId, null, null);
+                case PRICE -> new ProductCursor(sort, lastId, new BigDecimal(parts[2]), null);
+                case NAME -> new ProductCursor(sort, lastId, null, parts[2]);
+            };
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("Cursor inválido");
+        }
+    }
+}
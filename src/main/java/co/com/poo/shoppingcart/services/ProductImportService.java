@@ -0,0 +1,283 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.model.Money;
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.model.ProductImportReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Importación masiva de productos.
+ *
+ * El archivo se lee línea por línea (nunca completo en memoria) y las filas
+ * válidas se guardan por bloques con un INSERT ... ON DUPLICATE KEY UPDATE en
+ * batch de JDBC, una transacción por bloque. Se usa JDBC directo porque con
+ * IDENTITY Hibernate no puede agrupar los INSERT. Si un bloque falla se
+ * reintenta fila por fila para saber cuáles son las filas malas.
+ *
+ * Formatos: el de products.txt (ID|Titulo|Categoria|Precio) o CSV
+ * (id,nombre,categoria,precio). En ambos se acepta una quinta columna con el
+ * stock; sin ella los productos nuevos quedan con stock 10 y los existentes
+ * conservan el suyo. La primera línea se salta si es un encabezado.
+ */
+@Service
+public class ProductImportService {
+
+    public enum Format { PIPE, CSV }
+
+    /** Filas por batch de JDBC (y por transacción) */
+    public static final int CHUNK_SIZE = 1000;
+
+    private static final int DEFAULT_STOCK = 10;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO products (id, name, description, category_key, price, stock) " +
+            "VALUES (?, ?, ?, ?, ?, COALESCE(?, " + DEFAULT_STOCK + ")) " +
+            "ON DUPLICATE KEY UPDATE name = VALUES(name), description = VALUES(description), " +
+            "category_key = VALUES(category_key), price = VALUES(price), " +
+            "stock = IF(? IS NULL, stock, VALUES(stock))";
+
+    /**
+     * Fila ya validada
+     */
+    private static final class Row {
+        final long line;
+        final long id;
+        final String name;
+        final String category;
+        final BigDecimal price;
+        final Integer stock;
+
+        Row(long line, long id, String name, String category, BigDecimal price, Integer stock) {
+            this.line = line;
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.price = price;
+            this.stock = stock;
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private CatalogColumns catalogColumns;
+
+    @Autowired
+    private CatalogFacets catalogFacets;
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    /**
+     * Importa (crea o actualiza por ID) los productos del archivo
+     * @param input Contenido del archivo en UTF-8
+     * @param format Formato de las líneas
+     * @return Filas importadas y errores por fila
+     */
+    public ProductImportReport importProducts(InputStream input, Format format) throws IOException {
+        ProductImportReport report = new ProductImportReport();
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                List<String> fields = format == Format.PIPE ? splitPipe(line) : splitCsv(line);
+                if (lineNumber == 1 && isHeader(fields)) continue;
+                try {
+                    chunk.add(toRow(lineNumber, fields));
+                } catch (IllegalArgumentException e) {
+                    report.addError(lineNumber, e.getMessage());
+                    continue;
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    write(chunk, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                write(chunk, report);
+            }
+        } finally {
+            if (report.getImported() > 0) {
+                invalidateCatalogCaches();
+            }
+        }
+        return report;
+    }
+
+    private void write(List<Row> chunk, ProductImportReport report) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPSERT_SQL, chunk, chunk.size(), ProductImportService::bind));
+            report.addImported(chunk.size());
+        } catch (DataAccessException e) {
+            // Se reintenta fila por fila para reportar solo las que fallan
+            for (Row row : chunk) {
+                try {
+                    jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, row));
+                    report.addImported(1);
+                } catch (DataAccessException rowError) {
+                    report.addError(row.line, rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Row row) throws SQLException {
+        ps.setLong(1, row.id);
+        ps.setString(2, row.name);
+        ps.setString(3, row.category);
+        ps.setString(4, Product.categoryKey(row.category));
+        ps.setBigDecimal(5, row.price);
+        if (row.stock == null) {
+            ps.setNull(6, Types.INTEGER);
+            ps.setNull(7, Types.INTEGER);
+        } else {
+            ps.setInt(6, row.stock);
+            ps.setInt(7, row.stock);
+        }
+    }
+
+    /**
+     * La importación escribe por fuera de ProductService: se descartan la
+     * caché y los índices del catálogo para que se reconstruyan, y los
+     * contadores de stock vuelven a leer el stock guardado
+     */
+    private void invalidateCatalogCaches() {
+        productCache.invalidateAll();
+        searchIndex.invalidate();
+        catalogColumns.invalidate();
+        catalogFacets.invalidate();
+        stockReservations.resyncAll();
+    }
+
+    // ============ PARSEO ============
+
+    private static Row toRow(long line, List<String> fields) {
+        if (fields.size() != 4 && fields.size() != 5) {
+            throw new IllegalArgumentException("Se esperaban 4 o 5 columnas y hay " + fields.size());
+        }
+        long id;
+        try {
+            id = Long.parseLong(fields.get(0).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID inválido: " + fields.get(0));
+        }
+        if (id <= 0 || id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("ID fuera de rango: " + id);
+        }
+        String name = fields.get(1).trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("El nombre es obligatorio");
+        }
+        String category = fields.get(2).trim();
+        BigDecimal price;
+        try {
+            price = Money.toDecimal(Money.parse(fields.get(3)));
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Precio inválido: " + fields.get(3));
+        }
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException("El precio no puede ser negativo");
+        }
+        Integer stock = null;
+        if (fields.size() == 5 && !fields.get(4).isBlank()) {
+            try {
+                stock = Integer.parseInt(fields.get(4).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Stock inválido: " + fields.get(4));
+            }
+            if (stock < 0) {
+                throw new IllegalArgumentException("El stock no puede ser negativo");
+            }
+        }
+        return new Row(line, id, name, category.isEmpty() ? null : category, price, stock);
+    }
+
+    /**
+     * La primera línea es encabezado si su primera columna no es un número
+     */
+    private static boolean isHeader(List<String> fields) {
+        String first = fields.get(0).trim();
+        if (!first.isEmpty() && first.charAt(0) == '\uFEFF') first = first.substring(1); // BOM
+        for (int i = 0; i < first.length(); i++) {
+            if (!Character.isDigit(first.charAt(i))) return true;
+        }
+        return first.isEmpty();
+    }
+
+    private static List<String> splitPipe(String line) {
+        List<String> fields = new ArrayList<>(5);
+        int start = 0;
+        int pipe;
+        while ((pipe = line.indexOf('|', start)) >= 0) {
+            fields.add(line.substring(start, pipe));
+            start = pipe + 1;
+        }
+        fields.add(line.substring(start));
+        return fields;
+    }
+
+    /**
+     * CSV con comillas dobles opcionales ("" dentro de comillas es una comilla).
+     * Los campos no pueden tener saltos de línea.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
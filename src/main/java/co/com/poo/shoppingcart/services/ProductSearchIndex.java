@@ -0,0 +1,60 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.service.TextIndex;
+import co.com.poo.shoppingcart.util.LazyIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Búsqueda de productos por texto con ranking BM25 (ver TextIndex).
+ *
+ * Se construye la primera vez que se usa, como los demás índices del
+ * catálogo, y ProductService lo mantiene al crear, actualizar o eliminar
+ * productos.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private final LazyIndex<TextIndex> index = new LazyIndex<>();
+
+    /**
+     * Construye el índice si aún no existe
+     * @param products Proveedor de todos los productos del catálogo
+     */
+    public void ensureLoaded(Supplier<List<Product>> products) {
+        index.ensureLoaded(() -> TextIndex.of(products.get()));
+    }
+
+    /**
+     * Busca los k productos más relevantes para la consulta
+     * @return Los resultados de mayor a menor puntaje
+     */
+    public List<TextIndex.Hit> search(String query, int k) {
+        TextIndex current = index.get();
+        return current == null ? List.of() : current.search(query, k);
+    }
+
+    /**
+     * Registra un producto nuevo o actualizado
+     */
+    public void put(Product product) {
+        index.apply(current -> current.put(product));
+    }
+
+    /**
+     * Quita un producto eliminado
+     */
+    public void remove(int id) {
+        index.apply(current -> current.remove(id));
+    }
+
+    /**
+     * Descarta el índice; se vuelve a construir en la próxima búsqueda
+     */
+    public void invalidate() {
+        index.invalidate();
+    }
+}
@@ -1,12 +1,31 @@
 package co.com.poo.shoppingcart.services;
 
 import co.com.poo.shoppingcart.entities.ProductEntity;
+import co.com.poo.shoppingcart.exception.InvalidPageRequestException;
+import co.com.poo.shoppingcart.repositories.ProductFilter;
+import co.com.poo.shoppingcart.repositories.ProductRow;
 import co.com.poo.shoppingcart.repositories.ProductRepository;
+import co.com.poo.shoppingcart.model.CatalogFilter;
+import co.com.poo.shoppingcart.model.FacetCounts;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Product;
+import co.com.poo.shoppingcart.model.ProductPage;
+import co.com.poo.shoppingcart.model.ProductSort;
+import co.com.poo.shoppingcart.model.StockLevel;
+import co.com.poo.shoppingcart.service.CatalogSnapshotWriter;
+import co.com.poo.shoppingcart.service.TextIndex;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 /**
@@ -16,9 +35,47 @@ import java.util.stream.Collectors;
 @Service
 public class ProductService {
 
+    /** Tamaño de página si no se indica uno */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Tamaño máximo de página; los pedidos más grandes se recortan */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /** Resultados máximos de una búsqueda por texto */
+    public static final int MAX_SEARCH_RESULTS = 100;
+
+    private static final int LOCK_STRIPES = 64;
+
+    // Las escrituras de un mismo producto (en la base de datos y en las copias
+    // en memoria) se hacen una a la vez, así las copias ven el orden de la base
+    private final Object[] locks = newLocks();
+
     @Autowired
     private ProductRepository productRepository; // JPA Repository
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private CatalogColumns catalogColumns;
+
+    @Autowired
+    private CatalogFacets catalogFacets;
+
+    @Autowired
+    private StockReservations stockReservations;
+
+    @Autowired
+    private StockWriteBehind stockWriteBehind;
+
+    @PostConstruct
+    void registerStockListener() {
+        stockWriteBehind.setListener(this::refreshStock);
+    }
+
     /**
      * Obtiene todos los productos del catálogo desde la base de datos
      * @return Lista de productos (modelo de dominio)
@@ -31,55 +88,182 @@ public class ProductService {
     }
 
     /**
-     * Busca un producto por su ID en la base de datos
+     * Recorre todo el catálogo en orden de ID, un producto a la vez, leyendo de
+     * la base de datos con un cursor de solo avance. La memoria usada no
+     * depende del tamaño del catálogo.
+     * @param action Acción a ejecutar con cada producto
+     */
+    @Transactional(readOnly = true)
+    public void forEachProduct(Consumer<Product> action) {
+        try (Stream<ProductRow> rows = productRepository.streamAll()) {
+            rows.forEach(row -> action.accept(rowToModel(row)));
+        }
+    }
+
+    /**
+     * Prepara un snapshot binario de todo el catálogo (ver CatalogSnapshotWriter).
+     * Los productos se leen en streaming y quedan en columnas de primitivos; la
+     * escritura al destino se hace después, fuera de la transacción.
+     */
+    @Transactional(readOnly = true)
+    public CatalogSnapshotWriter snapshotWriter() {
+        CatalogSnapshotWriter writer = new CatalogSnapshotWriter();
+        try (Stream<ProductRow> rows = productRepository.streamAll()) {
+            rows.forEach(row -> writer.add(rowToModel(row)));
+        }
+        return writer;
+    }
+
+    /**
+     * Trae una página de productos directamente de la base de datos (paginación por llave).
+     * @param filter Filtro del listado
+     * @param sort Orden: id, price o name (null = id)
+     * @param cursor Token devuelto en la página anterior (null = primera página)
+     * @param limit Tamaño de página (null = DEFAULT_PAGE_SIZE, máximo MAX_PAGE_SIZE)
+     * @return La página y el cursor de la siguiente (null si no hay más)
+     * @throws InvalidPageRequestException si el orden, el cursor o el tamaño no son válidos
+     */
+    public ProductPage getProductPage(ProductFilter filter, String sort, String cursor, Integer limit) {
+        ProductSort order;
+        try {
+            order = sort == null ? ProductSort.ID : ProductSort.from(sort);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException(e.getMessage());
+        }
+        if (limit != null && limit < 1) {
+            throw new InvalidPageRequestException("El tamaño de página debe ser mayor a 0");
+        }
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        ProductCursor after = cursor == null || cursor.isBlank() ? null : ProductCursor.decode(cursor, order);
+
+        // Se pide una fila de más para saber si hay otra página
+        List<ProductRow> rows = productRepository.findPage(filter, order, after, size + 1);
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        List<Product> items = rows.stream()
+                .map(this::rowToModel)
+                .collect(Collectors.toList());
+
+        String next = null;
+        if (hasMore) {
+            ProductRow last = rows.get(rows.size() - 1);
+            next = new ProductCursor(order, last.getId(), last.getPrice(), last.getName()).encode();
+        }
+        return new ProductPage(items, next);
+    }
+
+    /**
+     * Busca un producto por su ID (primero en la caché, si no en la base de datos)
      * @param id ID del producto
      * @return El producto si existe, null si no se encuentra
      */
     public Product getProductById(Long id) {
-        return productRepository.findById(id)
+        return productCache.get(id, key -> productRepository.findById(key)
                 .map(this::entityToModel)
-                .orElse(null);
+                .orElse(null));
+    }
+
+    /**
+     * Busca varios productos por ID; los que no están en caché se traen con un solo findAllById
+     * @return Mapa ID -> producto (los IDs inexistentes no aparecen)
+     */
+    public Map<Integer, Product> getProductsById(Collection<Long> ids) {
+        Map<Integer, Product> products = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Product cached = productCache.getIfPresent(id);
+            if (cached != null) {
+                products.put(cached.getId(), cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long epoch = productCache.epoch();
+            for (ProductEntity entity : productRepository.findAllById(missing)) {
+                Product product = entityToModel(entity);
+                productCache.putLoaded(product, epoch);
+                products.put(product.getId(), product);
+            }
+        }
+        return products;
     }
 
     /**
-     * Busca productos por categoría
+     * Busca productos por categoría filtrando en SQL por la columna indexada category_key.
+     * La categoría se compara normalizada (ver Product.categoryKey).
      * @param category Categoría a filtrar
-     * @return Lista de productos de esa categoría
+     * @return Lista de productos de esa categoría, ordenada por ID
      */
     public List<Product> getProductsByCategory(String category) {
-        List<ProductEntity> entities = productRepository.findAll();
-        return entities.stream()
-                .filter(entity -> entity.getDescription() != null &&
-                        entity.getDescription().contains(category))
+        String key = Product.categoryKey(category);
+        if (key == null || key.isEmpty()) return List.of();
+        return productRepository.findByCategoryKeyOrderByIdAsc(key).stream()
                 .map(this::entityToModel)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Busca productos con precio mayor a un valor
-     * @param minPrice Precio mínimo
-     * @return Lista de productos filtrados
+     * Busca productos en un rango de precios usando el índice (price, id)
+     * @param minPrice Precio mínimo (en unidades mínimas, ver Money)
+     * @param maxPrice Precio máximo (en unidades mínimas, ver Money)
+     * @return Lista de productos en ese rango, ordenada por precio
      */
-    public List<Product> getProductsByPriceGreaterThan(Double minPrice) {
-        List<ProductEntity> entities = productRepository.findAll();
-        return entities.stream()
-                .filter(entity -> entity.getPrice() > minPrice)
+    public List<Product> getProductsByPriceRange(long minPrice, long maxPrice) {
+        if (minPrice > maxPrice) return List.of();
+        return productRepository.findByPriceBetweenOrderByPriceAscIdAsc(
+                        Money.toDecimal(minPrice), Money.toDecimal(maxPrice)).stream()
                 .map(this::entityToModel)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Busca productos en un rango de precios
-     * @param minPrice Precio mínimo
-     * @param maxPrice Precio máximo
-     * @return Lista de productos en ese rango
+     * Filtra el catálogo por categoría, rango de precios y stock a la vez
+     * (en memoria, sobre el catálogo en columnas)
+     * @param filter Condiciones del filtro; las omitidas no filtran
+     * @return Los productos que cumplen todas las condiciones, ordenados por precio
      */
-    public List<Product> getProductsByPriceRange(Double minPrice, Double maxPrice) {
-        List<ProductEntity> entities = productRepository.findAll();
-        return entities.stream()
-                .filter(entity -> entity.getPrice() >= minPrice && entity.getPrice() <= maxPrice)
-                .map(this::entityToModel)
-                .collect(Collectors.toList());
+    public List<Product> filterProducts(CatalogFilter filter) {
+        catalogColumns.ensureLoaded(this::getAllProducts);
+        return catalogColumns.filter(filter);
+    }
+
+    /**
+     * Conteos por categoría, histograma de precios y productos con stock para
+     * un filtro (cada dimensión ignora su propio filtro, ver FacetIndex)
+     * @param filter Condiciones del filtro; las omitidas no filtran
+     */
+    public FacetCounts getFacets(CatalogFilter filter) {
+        catalogFacets.ensureLoaded(this::getAllProducts);
+        return catalogFacets.facets(filter);
+    }
+
+    /**
+     * Stock exacto del producto: lo que aún se puede reservar y lo reservado
+     * por carritos (ver StockReservations)
+     * @return El stock, o null si el producto no existe
+     */
+    public StockLevel getStockLevel(Long id) {
+        if (getProductById(id) == null) return null;
+        return stockReservations.level(id.intValue());
+    }
+
+    /**
+     * Busca productos por texto en nombre y descripción, ordenados por relevancia (BM25)
+     * @param query Texto a buscar (sin distinguir mayúsculas ni tildes)
+     * @param limit Cantidad máxima de resultados (máximo MAX_SEARCH_RESULTS)
+     * @return Los productos más relevantes primero
+     */
+    public List<Product> searchProducts(String query, int limit) {
+        searchIndex.ensureLoaded(this::getAllProducts);
+        List<TextIndex.Hit> hits = searchIndex.search(query, Math.min(limit, MAX_SEARCH_RESULTS));
+        int[] ids = new int[hits.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = hits.get(i).getProductId();
+        }
+        return getProductsInOrder(ids);
     }
 
     /**
@@ -90,7 +274,11 @@ public class ProductService {
     public Product createProduct(Product product) {
         ProductEntity entity = modelToEntity(product);
         ProductEntity saved = productRepository.save(entity);
-        return entityToModel(saved);
+        Product created = entityToModel(saved);
+        synchronized (lockFor(created.getId())) {
+            publish(created);
+        }
+        return created;
     }
 
     /**
@@ -100,16 +288,22 @@ public class ProductService {
      * @return El producto actualizado, o null si no existe
      */
     public Product updateProduct(Long id, Product product) {
-        return productRepository.findById(id)
-                .map(existingEntity -> {
-                    existingEntity.setName(product.getName());
-                    existingEntity.setDescription(product.getCategory());
-                    existingEntity.setPrice(product.getPrice());
-                    existingEntity.setStock(product.getStock());
-                    ProductEntity updated = productRepository.save(existingEntity);
-                    return entityToModel(updated);
-                })
-                .orElse(null);
+        synchronized (lockFor(id.intValue())) {
+            return productRepository.findById(id)
+                    .map(existingEntity -> {
+                        Integer oldStock = existingEntity.getStock();
+                        existingEntity.setName(product.getName());
+                        existingEntity.setDescription(product.getCategory());
+                        existingEntity.setPrice(Money.toDecimal(product.getPrice()));
+                        existingEntity.setStock(product.getStock());
+                        ProductEntity updated = productRepository.save(existingEntity);
+                        Product model = entityToModel(updated);
+                        publish(model);
+                        stockReservations.stockChanged(model.getId(), oldStock, model.getStock());
+                        return model;
+                    })
+                    .orElse(null);
+        }
     }
 
     /**
@@ -118,11 +312,76 @@ public class ProductService {
      * @return true si se eliminó, false si no existía
      */
     public boolean deleteProduct(Long id) {
-        if (productRepository.existsById(id)) {
+        synchronized (lockFor(id.intValue())) {
+            if (!productRepository.existsById(id)) {
+                return false;
+            }
             productRepository.deleteById(id);
+            productCache.invalidate(id);
+            searchIndex.remove(id.intValue());
+            catalogColumns.remove(id.intValue());
+            catalogFacets.remove(id.intValue());
+            stockReservations.forget(id.intValue());
             return true;
         }
-        return false;
+    }
+
+    /**
+     * Las ventas de esos productos ya se escribieron en products.stock: se
+     * vuelve a leer cada producto y se actualizan todas las copias. La lectura
+     * se hace con el lock del producto para no pisar un cambio más nuevo.
+     */
+    private void refreshStock(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            synchronized (lockFor(id)) {
+                productRepository.findById(id.longValue())
+                        .map(this::entityToModel)
+                        .ifPresent(this::publish);
+            }
+        }
+    }
+
+    /**
+     * Guarda el producto en la caché y en los índices del catálogo
+     * (con el lock del producto tomado)
+     */
+    private void publish(Product product) {
+        productCache.put(product);
+        searchIndex.put(product);
+        catalogColumns.put(product);
+        catalogFacets.put(product);
+    }
+
+    private Object lockFor(int productId) {
+        return locks[productId & (LOCK_STRIPES - 1)];
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    /**
+     * Trae los productos de los IDs indicados conservando su orden
+     */
+    private List<Product> getProductsInOrder(int[] ids) {
+        if (ids.length == 0) return List.of();
+        List<Long> keys = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            keys.add((long) id);
+        }
+        Map<Integer, Product> products = getProductsById(keys);
+        List<Product> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
     }
 
     // ============ MÉTODOS DE CONVERSIÓN (Mappers) ============
@@ -135,11 +394,24 @@ public class ProductService {
                 entity.getId().intValue(),
                 entity.getName(),
                 entity.getDescription(), // Usando description como category
-                entity.getPrice(),
+                Money.fromDecimal(entity.getPrice()),
                 entity.getStock()
         );
     }
 
+    /**
+     * Convierte una fila de la proyección a modelo de dominio
+     */
+    private Product rowToModel(ProductRow row) {
+        return new Product(
+                row.getId().intValue(),
+                row.getName(),
+                row.getDescription(),
+                Money.fromDecimal(row.getPrice()),
+                row.getStock()
+        );
+    }
+
     /**
      * Convierte un modelo de dominio a entidad JPA
      */
@@ -150,7 +422,7 @@ public class ProductService {
         }
         entity.setName(model.getName());
         entity.setDescription(model.getCategory()); // Usando category como description
-        entity.setPrice(model.getPrice());
+        entity.setPrice(Money.toDecimal(model.getPrice()));
         entity.setStock(model.getStock());
         return entity;
     }
@@ -0,0 +1,363 @@
+package co.com.poo.shoppingcart.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador de stock de un producto: unidades disponibles y reservadas.
+ *
+ * El stock se reparte en franjas (stripes). Cada franja es un long con su
+ * disponible y su reservado, que se modifica con compareAndSet. Con una sola
+ * franja es un contador común; los productos muy concurridos (hot SKUs) usan
+ * varias para que las compras simultáneas no compitan por el mismo valor.
+ * Cada hilo reserva de su franja y, si no le alcanza, toma directamente de
+ * las demás (cada toma es un compareAndSet sobre la franja de donde sale el
+ * stock, así ninguna queda negativa). Si ninguna franja alcanza por sí sola,
+ * se decide con el total exacto.
+ *
+ * Para leer el total exacto se "congelan" todas las franjas (las operaciones
+ * esperan un instante), se suman y se liberan. Rebalancear, cambiar la
+ * cantidad de franjas o volver a cargar el stock usan el mismo mecanismo.
+ */
+final class StockCounter {
+
+    // Valor de una franja congelada (reservado = Integer.MIN_VALUE no ocurre en la práctica)
+    private static final long FROZEN = Long.MIN_VALUE;
+    // Separación entre franjas (en longs) para que no compartan línea de caché
+    private static final int PAD = 16;
+    private static final long REBALANCE_INTERVAL_NANOS = 50_000_000L;
+
+    /**
+     * Franjas vigentes; al cambiar su cantidad se reemplazan y las viejas quedan congeladas
+     */
+    private static final class Cells {
+        final AtomicLongArray states;
+        final int mask;
+
+        Cells(int stripes) {
+            states = new AtomicLongArray(stripes * PAD);
+            mask = stripes - 1;
+        }
+    }
+
+    private volatile Cells cells;
+    // El disponible total quedó negativo (en la franja 0): lo que vuelve va ahí hasta rebalancear
+    private volatile boolean deficit;
+    private final Object freezeLock = new Object();
+
+    private final LongAdder contention = new LongAdder();
+    private final LongAdder steals = new LongAdder();
+    private final AtomicLong lastRebalance = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param available Unidades disponibles
+     * @param stripes Cantidad de franjas (se redondea a potencia de 2)
+     */
+    StockCounter(int available, int stripes) {
+        Cells initial = new Cells(roundStripes(stripes));
+        spread(initial, available, 0);
+        this.cells = initial;
+    }
+
+    int stripes() {
+        return cells.mask + 1;
+    }
+
+    /**
+     * Reserva unidades si hay disponibles; nunca deja el disponible negativo
+     * @return false si no alcanza
+     */
+    boolean reserve(int quantity) {
+        while (true) {
+            Cells current = cells;
+            int own = ownStripe(current);
+            boolean retired = false;
+            for (int k = 0; k <= current.mask && !retired; k++) {
+                int result = tryTake(current, (own + k) & current.mask, quantity);
+                if (result == TAKEN) {
+                    if (k > 0) stolen();
+                    return true;
+                }
+                retired = result == RETIRED;
+            }
+            if (retired) continue;
+            // Con una franja el resultado ya es exacto; con varias, el stock puede estar repartido
+            return current.mask > 0 && reserveAcrossStripes(quantity);
+        }
+    }
+
+    /**
+     * Devuelve unidades reservadas al disponible
+     */
+    void unreserve(int quantity) {
+        update(quantity, -quantity);
+    }
+
+    /**
+     * Las unidades reservadas salen del contador (se vendieron)
+     */
+    void sell(int quantity) {
+        update(0, -quantity);
+    }
+
+    /**
+     * Suma (o resta) unidades al disponible sin tocar las reservas
+     */
+    void adjust(int delta) {
+        if (delta >= 0 || cells.mask == 0) {
+            update(delta, 0);
+            return;
+        }
+        // Restar de una sola franja dejaría a las otras reservando un stock que ya no existe
+        synchronized (freezeLock) {
+            Cells current = cells;
+            long totals = sum(freeze(current));
+            spread(current, availableOf(totals) + delta, reservedOf(totals));
+        }
+    }
+
+    /**
+     * @return Disponible y reservado exactos, en el formato de state()
+     */
+    long totals() {
+        Cells current = cells;
+        if (current.mask == 0) {
+            long state = read(current, 0);
+            if (state != FROZEN) return state;
+        }
+        synchronized (freezeLock) {
+            current = cells;
+            long[] states = freeze(current);
+            long totals = sum(states);
+            unfreeze(current, states);
+            return totals;
+        }
+    }
+
+    /**
+     * Reparte el disponible en partes iguales entre las franjas
+     */
+    void rebalance() {
+        synchronized (freezeLock) {
+            Cells current = cells;
+            if (current.mask == 0) return;
+            long totals = sum(freeze(current));
+            spread(current, availableOf(totals), reservedOf(totals));
+            lastRebalance.set(System.nanoTime());
+        }
+    }
+
+    /**
+     * Cambia la cantidad de franjas conservando los totales
+     */
+    void resize(int stripes) {
+        synchronized (freezeLock) {
+            Cells current = cells;
+            int target = roundStripes(stripes);
+            if (current.mask + 1 == target) return;
+            long totals = sum(freeze(current));
+            Cells next = new Cells(target);
+            spread(next, availableOf(totals), reservedOf(totals));
+            // Las franjas viejas quedan congeladas: quien las vea vuelve a leer cells
+            cells = next;
+        }
+    }
+
+    /**
+     * Toma stock como el nuevo valor guardado (disponible = stock - reservado),
+     * solo si los totales siguen siendo los esperados; si cambiaron (por ejemplo,
+     * una venta mientras se leía el stock), no se toca nada
+     * @param expectedTotals Totales leídos antes de leer el stock
+     * @return false si los totales cambiaron
+     */
+    boolean rebaseIf(long expectedTotals, int stock) {
+        synchronized (freezeLock) {
+            Cells current = cells;
+            long[] states = freeze(current);
+            long totals = sum(states);
+            if (totals != expectedTotals) {
+                unfreeze(current, states);
+                return false;
+            }
+            spread(current, stock - reservedOf(totals), reservedOf(totals));
+            return true;
+        }
+    }
+
+    /**
+     * @return Reintentos de compareAndSet desde la última llamada (mide la contención)
+     */
+    long drainContention() {
+        return contention.sumThenReset();
+    }
+
+    /**
+     * @return Reservas tomadas de otra franja desde la última llamada
+     */
+    long drainSteals() {
+        return steals.sumThenReset();
+    }
+
+    static int availableOf(long state) {
+        return (int) state;
+    }
+
+    static int reservedOf(long state) {
+        return (int) (state >>> 32);
+    }
+
+    static long state(int available, int reserved) {
+        return ((long) reserved << 32) | (available & 0xFFFFFFFFL);
+    }
+
+    // ============ FRANJAS ============
+
+    private static final int TAKEN = 0;
+    private static final int EMPTY = 1;
+    private static final int RETIRED = 2;
+
+    private int tryTake(Cells current, int stripe, int quantity) {
+        int index = stripe * PAD;
+        while (true) {
+            long state = current.states.get(index);
+            if (state == FROZEN) {
+                if (cells != current) return RETIRED;
+                Thread.onSpinWait();
+                continue;
+            }
+            int available = availableOf(state);
+            if (available < quantity) return EMPTY;
+            if (current.states.compareAndSet(index, state, state(available - quantity, reservedOf(state) + quantity))) {
+                return TAKEN;
+            }
+            contention.increment();
+        }
+    }
+
+    private void update(int availableDelta, int reservedDelta) {
+        while (true) {
+            Cells current = cells;
+            int index = deficit ? 0 : ownStripe(current) * PAD;
+            long state = current.states.get(index);
+            if (state == FROZEN) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long next = state(availableOf(state) + availableDelta, reservedOf(state) + reservedDelta);
+            if (current.states.compareAndSet(index, state, next)) return;
+            contention.increment();
+        }
+    }
+
+    /**
+     * Ninguna franja alcanzó por sí sola: con las franjas congeladas se revisa
+     * el total y, si alcanza, se toma de varias
+     */
+    private boolean reserveAcrossStripes(int quantity) {
+        synchronized (freezeLock) {
+            Cells current = cells;
+            long[] states = freeze(current);
+            long totals = sum(states);
+            if (availableOf(totals) < quantity) {
+                unfreeze(current, states);
+                return false;
+            }
+            int missing = quantity;
+            for (int i = 0; i < states.length && missing > 0; i++) {
+                int take = Math.min(missing, Math.max(0, availableOf(states[i])));
+                states[i] = state(availableOf(states[i]) - take, reservedOf(states[i]));
+                missing -= take;
+            }
+            int own = ownStripe(current);
+            states[own] = state(availableOf(states[own]), reservedOf(states[own]) + quantity);
+            unfreeze(current, states);
+            return true;
+        }
+    }
+
+    /**
+     * Una reserva tuvo que tomar de otra franja: se rebalancea, como mucho una
+     * vez cada REBALANCE_INTERVAL_NANOS y sin esperar si otro hilo ya lo hace
+     */
+    private void stolen() {
+        steals.increment();
+        long last = lastRebalance.get();
+        long now = System.nanoTime();
+        if (now - last >= REBALANCE_INTERVAL_NANOS && lastRebalance.compareAndSet(last, now)) {
+            rebalance();
+        }
+    }
+
+    private static int ownStripe(Cells current) {
+        if (current.mask == 0) return 0;
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & current.mask;
+    }
+
+    private long read(Cells current, int stripe) {
+        return current.states.get(stripe * PAD);
+    }
+
+    /**
+     * Congela todas las franjas (bajo freezeLock)
+     * @return El valor que tenía cada franja
+     */
+    private static long[] freeze(Cells current) {
+        long[] states = new long[current.mask + 1];
+        for (int i = 0; i < states.length; i++) {
+            int index = i * PAD;
+            while (true) {
+                long state = current.states.get(index);
+                if (current.states.compareAndSet(index, state, FROZEN)) {
+                    states[i] = state;
+                    break;
+                }
+            }
+        }
+        return states;
+    }
+
+    private static void unfreeze(Cells current, long[] states) {
+        for (int i = 0; i < states.length; i++) {
+            current.states.set(i * PAD, states[i]);
+        }
+    }
+
+    private static long sum(long[] states) {
+        int available = 0;
+        int reserved = 0;
+        for (long state : states) {
+            available += availableOf(state);
+            reserved += reservedOf(state);
+        }
+        return state(available, reserved);
+    }
+
+    /**
+     * Escribe los totales repartidos en partes iguales (y libera las franjas);
+     * el reservado va entero en la primera, solo importa su total. Un
+     * disponible negativo queda entero en la primera y las demás en 0.
+     */
+    private void spread(Cells target, int available, int reserved) {
+        int stripes = target.mask + 1;
+        long[] states = new long[stripes];
+        if (available <= 0) {
+            states[0] = state(available, reserved);
+        } else {
+            int share = available / stripes;
+            int rest = available % stripes;
+            for (int i = 0; i < stripes; i++) {
+                states[i] = state(share + (i < rest ? 1 : 0), i == 0 ? reserved : 0);
+            }
+        }
+        // Antes de liberar las franjas, para que nadie deposite en otra mientras falte stock
+        deficit = available < 0;
+        unfreeze(target, states);
+    }
+
+    private static int roundStripes(int stripes) {
+        int n = Math.min(stripes, 1 << 10);
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+}
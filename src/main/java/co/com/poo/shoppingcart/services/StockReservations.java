@@ -0,0 +1,528 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.exception.InsufficientStockException;
+import co.com.poo.shoppingcart.model.StockLevel;
+import co.com.poo.shoppingcart.util.HashedTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas de stock del carrito y el checkout.
+ *
+ * Cada producto con stock tiene un contador en memoria (StockCounter) que se
+ * modifica con compareAndSet, sin locks: reservar, liberar y vender cambian
+ * las unidades disponibles y las reservadas a la vez, y el disponible nunca
+ * queda negativo por una reserva.
+ *
+ * Las reservas de cada cliente siguen a su carrito (agregar, cambiar cantidad,
+ * quitar, vaciar) y vencen si no se tocan en stock.reservation.ttl-ms; el
+ * vencimiento usa una rueda de temporizadores, igual que CartExpiry. El
+ * checkout convierte las reservas en ventas, reservando lo que falte (todo o
+ * nada), y StockWriteBehind escribe las ventas en products.stock por lotes.
+ *
+ * El contador se carga la primera vez que se usa el producto (stock guardado
+ * menos ventas pendientes). Los productos sin stock (null) no se limitan.
+ *
+ * Productos muy concurridos (hot SKUs, por ejemplo en una venta relámpago):
+ * los de stock.hot.product-ids, y los que superan stock.hot.contention-threshold
+ * reintentos de compareAndSet en un intervalo, reparten su disponible en
+ * stock.hot.stripes franjas para que las compras no compitan por un solo valor.
+ * Cada stock.hot.reconcile-interval-ms se rebalancean sus franjas y se comparan
+ * con el stock guardado (menos ventas pendientes); si no coinciden, se corrige
+ * el contador. Tras COOLDOWN_INTERVALS intervalos sin contención vuelven a un
+ * contador simple. available y level dan siempre el total exacto.
+ */
+@Component
+public class StockReservations {
+
+    @Value("${stock.reservation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stock.reservation.ttl-ms:900000}")
+    private long ttlMs;
+
+    @Value("${stock.reservation.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${stock.reservation.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${stock.hot.product-ids:}")
+    private Set<Integer> hotProductIds;
+
+    @Value("${stock.hot.stripes:16}")
+    private int hotStripes;
+
+    @Value("${stock.hot.contention-threshold:1000}")
+    private long contentionThreshold;
+
+    @Value("${stock.hot.reconcile-interval-ms:1000}")
+    private long reconcileIntervalMs;
+
+    @Autowired
+    private StockWriteBehind writeBehind;
+
+    private static final int COOLDOWN_INTERVALS = 60;
+
+    // Contador compartido por los productos sin stock: nunca se modifica
+    private static final StockCounter UNLIMITED = new StockCounter(0, 1);
+
+    private final Map<Integer, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Holds> holds = new ConcurrentHashMap<>();
+
+    /**
+     * Unidades que un cliente tiene reservadas de un producto, y en qué contador
+     * (si el contador se reemplaza, la reserva queda en el viejo y ya no cuenta)
+     */
+    private static final class Hold {
+        final StockCounter counter;
+        int quantity;
+
+        Hold(StockCounter counter, int quantity) {
+            this.counter = counter;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * Reservas de un cliente; se usan bajo su propio lock
+     */
+    private static final class Holds {
+        final Map<Integer, Hold> byProduct = new HashMap<>();
+        long lastTouch;
+        boolean scheduled;
+        boolean closed; // ya salió del mapa: quien lo tenga debe buscar otro
+    }
+
+    private final Counter rejected;
+    private final Counter expired;
+    private final Counter promotions;
+    private final Counter steals;
+    private final Counter reconciled;
+
+    // Solo lo usa el hilo de reconciliación: intervalos seguidos sin contención por producto
+    private final Map<Integer, Integer> quietIntervals = new HashMap<>();
+    private volatile int hotProducts;
+
+    private HashedTimingWheel<String> wheel;
+    private ScheduledExecutorService executor;
+
+    public StockReservations(MeterRegistry meterRegistry) {
+        this.rejected = Counter.builder("stock.reservation.rejected")
+                .description("Reservas rechazadas por falta de stock")
+                .register(meterRegistry);
+        this.expired = Counter.builder("stock.reservation.expired")
+                .description("Reservas de carritos abandonados liberadas")
+                .register(meterRegistry);
+        this.promotions = Counter.builder("stock.hot.promotions")
+                .description("Productos que pasaron a contador por franjas por contención")
+                .register(meterRegistry);
+        this.steals = Counter.builder("stock.hot.steals")
+                .description("Reservas que tomaron stock de otra franja")
+                .register(meterRegistry);
+        this.reconciled = Counter.builder("stock.hot.reconciled")
+                .description("Contadores corregidos contra el stock guardado")
+                .register(meterRegistry);
+        meterRegistry.gauge("stock.reservation.customers", holds, Map::size);
+        meterRegistry.gauge("stock.hot.products", this, r -> r.hotProducts);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        wheel = new HashedTimingWheel<>(wheelSize, TimeUnit.MILLISECONDS.toNanos(tickMs));
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-reservations");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::tickQuietly, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Deja reservadas exactamente esa cantidad del producto para el cliente
+     * (0 = liberar su reserva). Si no alcanza el stock no cambia nada.
+     * @return false si no hay stock suficiente
+     */
+    public boolean hold(String customerId, int productId, int quantity) {
+        if (!enabled) return true;
+        StockCounter counter = counter(productId);
+        while (true) {
+            Holds customer = holds.computeIfAbsent(customerId, k -> new Holds());
+            synchronized (customer) {
+                if (customer.closed) continue;
+                Hold hold = customer.byProduct.get(productId);
+                if (hold != null && hold.counter != counter) {
+                    customer.byProduct.remove(productId);
+                    hold = null;
+                }
+                if (counter == UNLIMITED) return true;
+                int held = hold == null ? 0 : hold.quantity;
+                int delta = quantity - held;
+                if (delta > 0 && !counter.reserve(delta)) {
+                    rejected.increment();
+                    return false;
+                }
+                if (delta < 0) {
+                    counter.unreserve(-delta);
+                }
+                if (quantity <= 0) {
+                    customer.byProduct.remove(productId);
+                } else if (hold == null) {
+                    customer.byProduct.put(productId, new Hold(counter, quantity));
+                } else {
+                    hold.quantity = quantity;
+                }
+                touch(customerId, customer);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera todas las reservas del cliente (por ejemplo, al vaciar el carrito)
+     */
+    public void releaseAll(String customerId) {
+        Holds customer = holds.remove(customerId);
+        if (customer == null) return;
+        synchronized (customer) {
+            close(customer);
+        }
+    }
+
+    /**
+     * Convierte en venta las cantidades indicadas: usa las reservas del
+     * cliente y reserva lo que falte; si algún producto no alcanza no se
+     * vende nada. Las demás reservas del cliente se liberan.
+     * @param quantities Producto -> unidades vendidas
+     * @throws InsufficientStockException si algún producto no alcanza
+     */
+    public void commit(String customerId, Map<Integer, Integer> quantities) {
+        if (!enabled) return;
+        Holds customer = customerId == null ? null : holds.get(customerId);
+        if (customer == null) customer = new Holds();
+        synchronized (customer) {
+            Map<Integer, Hold> held = customer.closed ? Map.of() : customer.byProduct;
+
+            // Primero se reserva lo que falte; si algo no alcanza se deshace
+            List<Integer> products = new ArrayList<>(quantities.keySet());
+            StockCounter[] used = new StockCounter[products.size()];
+            int[] extra = new int[products.size()];
+            for (int i = 0; i < products.size(); i++) {
+                int productId = products.get(i);
+                StockCounter counter = counter(productId);
+                used[i] = counter;
+                if (counter == UNLIMITED) continue;
+                Hold hold = held.get(productId);
+                int reserved = hold != null && hold.counter == counter ? hold.quantity : 0;
+                int missing = quantities.get(productId) - reserved;
+                if (missing > 0 && !counter.reserve(missing)) {
+                    for (int j = 0; j < i; j++) {
+                        if (extra[j] > 0) used[j].unreserve(extra[j]);
+                    }
+                    rejected.increment();
+                    throw new InsufficientStockException(productId, availableOf(counter.totals()) + reserved);
+                }
+                extra[i] = Math.max(0, missing);
+            }
+
+            // Todo alcanzó: las unidades reservadas pasan a vendidas
+            for (int i = 0; i < products.size(); i++) {
+                if (used[i] == UNLIMITED) continue;
+                int productId = products.get(i);
+                int quantity = quantities.get(productId);
+                Hold hold = held.get(productId);
+                if (hold != null && hold.counter == used[i]) {
+                    hold.quantity = Math.max(0, hold.quantity - quantity);
+                }
+                StockCounter counter = used[i];
+                writeBehind.recordSale(productId, quantity, () -> counter.sell(quantity));
+            }
+            if (!customer.closed && customerId != null) {
+                holds.remove(customerId, customer);
+                close(customer);
+            }
+        }
+    }
+
+    /**
+     * Deshace la venta de las cantidades indicadas (un pedido que no se pudo
+     * guardar después del commit): las unidades vuelven al disponible
+     * @param quantities Producto -> unidades a devolver
+     */
+    public void restore(Map<Integer, Integer> quantities) {
+        if (!enabled) return;
+        quantities.forEach((productId, quantity) -> {
+            StockCounter counter = counter(productId);
+            if (counter == UNLIMITED) return;
+            writeBehind.recordSale(productId, -quantity, () -> counter.adjust(quantity));
+        });
+    }
+
+    /**
+     * @return Unidades del producto que aún se pueden reservar, o null si no maneja stock
+     */
+    public Integer available(int productId) {
+        StockCounter counter = counter(productId);
+        return counter == UNLIMITED ? null : Math.max(0, availableOf(counter.totals()));
+    }
+
+    /**
+     * @return Disponible y reservado exactos del producto, y en cuántas franjas está
+     */
+    public StockLevel level(int productId) {
+        if (!enabled) {
+            return new StockLevel(productId, writeBehind.currentStock(productId), 0, 1);
+        }
+        StockCounter counter = counter(productId);
+        if (counter == UNLIMITED) return new StockLevel(productId, null, 0, 1);
+        long totals = counter.totals();
+        return new StockLevel(productId, Math.max(0, availableOf(totals)), reservedOf(totals), counter.stripes());
+    }
+
+    /**
+     * @return Unidades del producto que el cliente podría tener en total (las
+     * libres más las que ya tiene reservadas), o null si no maneja stock
+     */
+    public Integer availableFor(String customerId, int productId) {
+        StockCounter counter = counter(productId);
+        if (counter == UNLIMITED) return null;
+        int held = 0;
+        Holds customer = holds.get(customerId);
+        if (customer != null) {
+            synchronized (customer) {
+                Hold hold = customer.closed ? null : customer.byProduct.get(productId);
+                if (hold != null && hold.counter == counter) held = hold.quantity;
+            }
+        }
+        return Math.max(0, availableOf(counter.totals())) + held;
+    }
+
+    /**
+     * El stock guardado del producto cambió por una edición: se aplica la
+     * diferencia al contador sin tocar las reservas
+     */
+    public void stockChanged(int productId, Integer oldStock, Integer newStock) {
+        StockCounter counter = counters.get(productId);
+        if (counter == null) return;
+        if (oldStock == null || newStock == null || counter == UNLIMITED) {
+            // Cambió si el producto maneja stock: se vuelve a cargar al usarlo
+            counters.remove(productId);
+            return;
+        }
+        counter.adjust(newStock - oldStock);
+    }
+
+    /**
+     * El producto se eliminó
+     */
+    public void forget(int productId) {
+        counters.remove(productId);
+    }
+
+    /**
+     * Vuelve a leer el stock guardado de todos los contadores cargados (por
+     * ejemplo, después de una importación masiva), conservando las reservas
+     */
+    public void resyncAll() {
+        // Los totales se leen antes que el stock: si cambian en medio, rebaseIf no aplica
+        Map<Integer, StockCounter> loaded = new HashMap<>(counters);
+        Map<Integer, Long> before = new HashMap<>();
+        loaded.forEach((id, counter) -> before.put(id, counter.totals()));
+        Map<Integer, Integer> stocks = writeBehind.currentStocks(loaded.keySet());
+        for (Map.Entry<Integer, StockCounter> entry : loaded.entrySet()) {
+            int id = entry.getKey();
+            StockCounter counter = entry.getValue();
+            Integer stock = stocks.get(id);
+            if (stock == null || counter == UNLIMITED) {
+                counters.remove(id, counter);
+                continue;
+            }
+            // Si el contador cambió mientras se leía el stock, se relee solo ese producto
+            long totals = before.get(id);
+            while (!counter.rebaseIf(totals, stock)) {
+                totals = counter.totals();
+                stock = writeBehind.currentStock(id);
+                if (stock == null) {
+                    counters.remove(id, counter);
+                    break;
+                }
+            }
+        }
+    }
+
+    // ============ CONTADORES ============
+
+    private StockCounter counter(int productId) {
+        StockCounter counter = counters.get(productId);
+        if (counter != null) return counter;
+        // El stock se consulta fuera del mapa; si otro hilo cargó el producto
+        // mientras tanto, se usa el contador que entró primero
+        Integer stock = writeBehind.currentStock(productId);
+        StockCounter loaded = stock == null ? UNLIMITED
+                : new StockCounter(stock, hotProductIds.contains(productId) ? hotStripes : 1);
+        StockCounter current = counters.putIfAbsent(productId, loaded);
+        return current != null ? current : loaded;
+    }
+
+    private static int availableOf(long totals) {
+        return StockCounter.availableOf(totals);
+    }
+
+    private static int reservedOf(long totals) {
+        return StockCounter.reservedOf(totals);
+    }
+
+    // ============ PRODUCTOS CONCURRIDOS ============
+
+    /**
+     * Pasa a franjas los contadores con mucha contención (y vuelve a un
+     * contador simple los que se calmaron); rebalancea los que tienen franjas
+     * y los compara con el stock guardado
+     */
+    void reconcile() {
+        Map<Integer, StockCounter> hot = new HashMap<>();
+        for (Map.Entry<Integer, StockCounter> entry : counters.entrySet()) {
+            int id = entry.getKey();
+            StockCounter counter = entry.getValue();
+            if (counter == UNLIMITED) continue;
+            long contention = counter.drainContention();
+            boolean configured = hotProductIds.contains(id);
+            if (counter.stripes() == 1) {
+                if (configured || contentionThreshold > 0 && contention >= contentionThreshold) {
+                    counter.resize(hotStripes);
+                    if (!configured) promotions.increment();
+                    quietIntervals.remove(id);
+                } else {
+                    continue;
+                }
+            } else if (!configured && contention == 0) {
+                int quiet = quietIntervals.merge(id, 1, Integer::sum);
+                if (quiet >= COOLDOWN_INTERVALS) {
+                    counter.resize(1);
+                    quietIntervals.remove(id);
+                    continue;
+                }
+            } else {
+                quietIntervals.remove(id);
+            }
+            hot.put(id, counter);
+            counter.rebalance();
+            steals.increment(counter.drainSteals());
+        }
+        quietIntervals.keySet().retainAll(counters.keySet());
+        hotProducts = hot.size();
+        reconcileWithStore(hot);
+    }
+
+    /**
+     * Compara los contadores con el stock guardado menos las ventas pendientes
+     * (una sola lectura para todos) y corrige los que no coinciden (por
+     * ejemplo, si alguien editó la tabla)
+     */
+    private void reconcileWithStore(Map<Integer, StockCounter> hot) {
+        if (hot.isEmpty()) return;
+        Map<Integer, Long> before = new HashMap<>();
+        hot.forEach((id, counter) -> before.put(id, counter.totals()));
+        Map<Integer, Integer> stocks = writeBehind.currentStocks(hot.keySet());
+        hot.forEach((id, counter) -> {
+            Integer stock = stocks.get(id);
+            if (stock == null) {
+                counters.remove(id, counter);
+                return;
+            }
+            long totals = before.get(id);
+            int expected = stock - reservedOf(totals);
+            // Una venta registra su pendiente y su efecto en el contador en un solo paso
+            // (ver StockWriteBehind.recordSale): si ocurrió entre las dos lecturas, los
+            // totales cambiaron y rebaseIf no aplica; se deja para el próximo intervalo
+            if (availableOf(totals) != expected && counter.rebaseIf(totals, stock)) {
+                reconciled.increment();
+            }
+        });
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            System.err.println("Error al reconciliar stock de productos concurridos: " + e.getMessage());
+        }
+    }
+
+    // ============ VENCIMIENTO ============
+
+    private void touch(String customerId, Holds customer) {
+        customer.lastTouch = System.nanoTime();
+        if (!customer.scheduled && wheel != null) {
+            customer.scheduled = true;
+            wheel.schedule(customerId, TimeUnit.MILLISECONDS.toNanos(ttlMs));
+        }
+    }
+
+    private static void close(Holds customer) {
+        customer.closed = true;
+        for (Hold hold : customer.byProduct.values()) {
+            if (hold.quantity > 0 && hold.counter != UNLIMITED) hold.counter.unreserve(hold.quantity);
+        }
+        customer.byProduct.clear();
+    }
+
+    /**
+     * Libera las reservas que vencieron; las que se tocaron después se reprograman
+     */
+    void tick() {
+        long now = System.nanoTime();
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        wheel.advance(customerId -> {
+            Holds customer = holds.get(customerId);
+            if (customer == null) return;
+            synchronized (customer) {
+                if (customer.closed) return;
+                long remaining = customer.lastTouch + ttlNanos - now;
+                if (remaining > 0) {
+                    wheel.schedule(customerId, remaining);
+                    return;
+                }
+                holds.remove(customerId, customer);
+                if (!customer.byProduct.isEmpty()) expired.increment();
+                close(customer);
+            }
+        });
+    }
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            System.err.println("Error al liberar reservas de stock: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package co.com.poo.shoppingcart.services;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Escritura diferida de las ventas en products.stock.
+ *
+ * Cada venta solo suma las unidades vendidas al pendiente de su producto; un
+ * hilo en segundo plano las escribe por lotes con un UPDATE por producto
+ * (stock = stock - vendidas). Muchas compras del mismo producto entre dos
+ * escrituras terminan en una sola actualización de su fila.
+ *
+ * El stock vigente de un producto es el guardado menos sus ventas pendientes
+ * (ver currentStock). El guardado se lee sin locks y se descarta si en medio
+ * se escribió un lote. Las ventas se registran junto con su efecto en el
+ * contador en memoria, así una lectura del pendiente nunca ve una venta a medias.
+ */
+@Component
+public class StockWriteBehind {
+
+    private static final String UPDATE_SQL = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock IS NOT NULL";
+    private static final int SELECT_CHUNK = 500;
+    private static final int LOCK_STRIPES = 64;
+    // Lecturas sin bloquear la escritura de lotes antes de esperarla
+    private static final int OPTIMISTIC_READS = 3;
+
+    @Value("${stock.write-behind.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${stock.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Producto -> unidades vendidas que aún no se escriben
+    private final Map<Integer, Integer> pending = new ConcurrentHashMap<>();
+
+    // Las ventas toman el lock de lectura de su franja (entre ellas no se
+    // bloquean) y leer el pendiente de un producto, un instante, el de escritura
+    private final ReentrantReadWriteLock[] salesLocks = newLocks();
+
+    // Impar mientras se escribe un lote; si cambia durante una lectura del stock, se repite
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final DistributionSummary flushBatchSize;
+
+    private ScheduledExecutorService executor;
+    private Consumer<Collection<Integer>> listener = ids -> { };
+
+    public StockWriteBehind(MeterRegistry meterRegistry) {
+        this.flushBatchSize = DistributionSummary.builder("stock.writebehind.flush.batch")
+                .description("Productos actualizados por lote")
+                .register(meterRegistry);
+        meterRegistry.gauge("stock.writebehind.pending", pending, Map::size);
+    }
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::flushAllQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra quién se entera de los productos cuyo stock se escribió (para refrescar cachés)
+     */
+    public void setListener(Consumer<Collection<Integer>> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Suma una venta al pendiente del producto y, en el mismo paso respecto de
+     * currentStock, la aplica en memoria. Una cantidad negativa deshace una venta.
+     * @param applied Efecto de la venta en el contador del producto (StockCounter.sell)
+     */
+    public void recordSale(int productId, int quantity, Runnable applied) {
+        Lock lock = lockFor(productId).readLock();
+        lock.lock();
+        try {
+            pending.merge(productId, quantity, Integer::sum);
+            applied.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Stock guardado del producto menos sus ventas pendientes, o null
+     * si el producto no existe o no maneja stock
+     */
+    public Integer currentStock(int productId) {
+        return currentStocks(List.of(productId)).get(productId);
+    }
+
+    /**
+     * Igual que currentStock para varios productos, con consultas por tramos.
+     * Ninguna venta espera la consulta: si en medio se escribió un lote se
+     * vuelve a leer, y si siguen llegando lotes se lee con la escritura detenida.
+     * @return Producto -> stock vigente (sin los productos sin stock o inexistentes)
+     */
+    public Map<Integer, Integer> currentStocks(Collection<Integer> productIds) {
+        List<Integer> ids = new ArrayList<>(productIds);
+        for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+            long before = flushes.get();
+            if ((before & 1) != 0) continue;
+            Map<Integer, Integer> stocks = minusPending(storedStocks(ids));
+            if (flushes.get() == before) return stocks;
+        }
+        synchronized (this) {
+            return minusPending(storedStocks(ids));
+        }
+    }
+
+    /**
+     * Escribe todas las ventas pendientes, lote por lote
+     */
+    public synchronized void flushAll() {
+        while (!pending.isEmpty()) {
+            List<int[]> batch = new ArrayList<>(batchSize);
+            flushes.incrementAndGet();
+            try {
+                Iterator<Integer> it = pending.keySet().iterator();
+                while (it.hasNext() && batch.size() < batchSize) {
+                    Integer productId = it.next();
+                    Integer sold = pending.remove(productId);
+                    if (sold != null) {
+                        batch.add(new int[]{productId, sold});
+                    }
+                }
+                write(batch);
+            } finally {
+                flushes.incrementAndGet();
+            }
+            notifyWritten(batch);
+        }
+    }
+
+    /**
+     * Detiene el hilo de escritura y escribe lo que quede pendiente
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(flushIntervalMs * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushAll();
+    }
+
+    private void write(List<int[]> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, sale) -> {
+                        ps.setInt(1, sale[1]);
+                        ps.setInt(2, sale[0]);
+                    }));
+        } catch (RuntimeException e) {
+            // Si falla, las ventas vuelven a quedar pendientes para el próximo intento
+            for (int[] sale : batch) {
+                pending.merge(sale[0], sale[1], Integer::sum);
+            }
+            throw e;
+        }
+        flushBatchSize.record(batch.size());
+    }
+
+    private void notifyWritten(List<int[]> batch) {
+        if (batch.isEmpty()) return;
+        List<Integer> ids = new ArrayList<>(batch.size());
+        for (int[] sale : batch) ids.add(sale[0]);
+        listener.accept(ids);
+    }
+
+    /**
+     * Stock guardado de los productos, sin restar lo pendiente
+     */
+    private Map<Integer, Integer> storedStocks(List<Integer> ids) {
+        Map<Integer, Integer> stocks = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += SELECT_CHUNK) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + SELECT_CHUNK, ids.size()));
+            String sql = "SELECT id, stock FROM products WHERE stock IS NOT NULL AND id IN ("
+                    + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                stocks.put(rs.getInt(1), rs.getInt(2));
+            }, chunk.toArray());
+        }
+        return stocks;
+    }
+
+    /**
+     * Resta a cada stock guardado las ventas pendientes de su producto. El
+     * pendiente se lee con el lock de escritura de la franja, así no queda en
+     * medio de una venta (ya sumada al pendiente pero no aplicada al contador).
+     */
+    private Map<Integer, Integer> minusPending(Map<Integer, Integer> stored) {
+        Map<Integer, Integer> stocks = new HashMap<>();
+        stored.forEach((id, stock) -> {
+            Lock lock = lockFor(id).writeLock();
+            lock.lock();
+            try {
+                stocks.put(id, stock - pending.getOrDefault(id, 0));
+            } finally {
+                lock.unlock();
+            }
+        });
+        return stocks;
+    }
+
+    private ReentrantReadWriteLock lockFor(int productId) {
+        return salesLocks[productId & (LOCK_STRIPES - 1)];
+    }
+
+    private static ReentrantReadWriteLock[] newLocks() {
+        ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        return locks;
+    }
+
+    private void flushAllQuietly() {
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            System.err.println("Error al guardar ventas de stock pendientes: " + e.getMessage());
+        }
+    }
+}
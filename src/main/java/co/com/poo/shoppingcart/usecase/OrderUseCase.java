@@ -1,46 +1,82 @@
 package co.com.poo.shoppingcart.usecase;
 
 import co.com.poo.shoppingcart.model.Cart;
+import co.com.poo.shoppingcart.model.Money;
 import co.com.poo.shoppingcart.model.Order;
 import co.com.poo.shoppingcart.service.CartRepository;
+import co.com.poo.shoppingcart.service.StockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class OrderUseCase {
     private final CartRepository cartRepository;
-    private final Map<String, Order> orders; // Almacenamiento interno de órdenes
+    private final StockRepository stockRepository;
+    // Órdenes de la consola (en la API se guardan en la base de datos, ver OrderService)
+    private final Map<String, Order> orders;
 
-    private static final double DISCOUNT_THRESHOLD = 100000.0;
-    private static final double DISCOUNT_PERCENTAGE = 0.05;
+    private static final long DISCOUNT_THRESHOLD = Money.of(100000);
+    private static final int DISCOUNT_BASIS_POINTS = 500; // 5%
 
     public OrderUseCase(CartRepository cartRepository) {
+        this(cartRepository, StockRepository.UNLIMITED);
+    }
+
+    @Autowired
+    public OrderUseCase(CartRepository cartRepository, StockRepository stockRepository) {
         this.cartRepository = cartRepository;
-        this.orders = new HashMap<>();
+        this.stockRepository = stockRepository;
+        this.orders = new ConcurrentHashMap<>();
     }
 
     public Order createOrder() {
-        Cart cart = cartRepository.getCart();
+        Order order = createOrder(null, cartRepository.getCart());
+        if (order != null) {
+            orders.put(order.getOrderId(), order);
+        }
+        return order;
+    }
+
+    /**
+     * Crea la orden a partir del carrito de un cliente específico.
+     * Antes de crearla se confirma el stock de todos los items (todo o nada).
+     * Quien llama debe tener el carrito bloqueado y vaciarlo después (ver CartService.checkout).
+     * La orden no queda en memoria: quien llama guarda su resumen.
+     * @return La orden, o null si el carrito está vacío
+     * @throws co.com.poo.shoppingcart.exception.InsufficientStockException si algún producto no alcanza
+     */
+    public Order createOrder(String customerId, Cart cart) {
         if (cart.isEmpty()) return null;
 
-        double subtotal = cart.getTotalAmount();
-        double discount = calculateDiscount(subtotal);
+        stockRepository.commit(customerId, cart.getItems());
 
-        Order order = new Order(cart.getItems(), subtotal, discount);
-        orders.put(order.getOrderId(), order);
+        long subtotal = cart.getTotalAmount();
+        long discount = calculateDiscount(subtotal);
 
-        return order;
+        return new Order(cart.getItems(), subtotal, discount);
+    }
+
+    /**
+     * Deshace la confirmación de stock de una orden que no se pudo completar
+     * (por ejemplo, si falló guardar su resumen)
+     */
+    public void cancelOrder(Order order) {
+        stockRepository.restore(order.getItems());
     }
 
-    private double calculateDiscount(double total) {
+    private long calculateDiscount(long total) {
         if (total > DISCOUNT_THRESHOLD) {
-            return total * DISCOUNT_PERCENTAGE;
+            return Money.percentage(total, DISCOUNT_BASIS_POINTS);
         }
-        return 0.0; // Sin descuento
+        return 0L; // Sin descuento
     }
 
+    /**
+     * @return Una orden creada desde la consola, o null si no existe
+     */
     public Order getOrder(String orderId) {
         return orders.get(orderId);
     }
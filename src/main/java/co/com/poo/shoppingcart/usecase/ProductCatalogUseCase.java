@@ -1,11 +1,11 @@
 package co.com.poo.shoppingcart.usecase;
 
+import co.com.poo.shoppingcart.model.CatalogFilter;
 import co.com.poo.shoppingcart.model.Product;
 import co.com.poo.shoppingcart.service.ProductRepository;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 public class ProductCatalogUseCase {
@@ -25,19 +25,27 @@ public class ProductCatalogUseCase {
 
     // Nuevos métodos requeridos por el catálogo
     public List<Product> getByCategory(String category) {
-        return productRepository.loadProducts().stream()
-                .filter(p -> p.getCategory() != null && p.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        return productRepository.getProductsByCategory(category);
     }
 
-    public List<Product> searchByPrice(Double minPrice, Double maxPrice) {
-        return productRepository.loadProducts().stream()
-                .filter(p -> {
-                    double price = p.getPrice();
-                    boolean minOk = (minPrice == null) || price >= minPrice;
-                    boolean maxOk = (maxPrice == null) || price <= maxPrice;
-                    return minOk && maxOk;
-                })
-                .collect(Collectors.toList());
+    /**
+     * Busca productos por rango de precio; cualquiera de los límites puede ser null
+     * @param minPrice Precio mínimo en unidades mínimas (ver Money)
+     * @param maxPrice Precio máximo en unidades mínimas (ver Money)
+     */
+    public List<Product> searchByPrice(Long minPrice, Long maxPrice) {
+        return productRepository.getProductsByPriceRange(minPrice, maxPrice);
+    }
+
+    /**
+     * Filtra por categoría, rango de precio y stock a la vez; las condiciones null (o false) no filtran
+     * @param category Categoría (sin distinguir mayúsculas ni espacios a los lados)
+     * @param minPrice Precio mínimo en unidades mínimas (ver Money)
+     * @param maxPrice Precio máximo en unidades mínimas (ver Money)
+     * @param inStockOnly Solo productos con stock
+     * @return Los productos que cumplen todo, ordenados por precio
+     */
+    public List<Product> filter(String category, Long minPrice, Long maxPrice, boolean inStockOnly) {
+        return productRepository.filterProducts(CatalogFilter.of(category, minPrice, maxPrice, inStockOnly));
     }
 }
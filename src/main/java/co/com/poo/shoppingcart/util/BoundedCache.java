@@ -0,0 +1,356 @@
+package co.com.poo.shoppingcart.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria de tamaño acotado con política W-TinyLFU.
+ *
+ * Las entradas nuevas llegan a una ventana LRU pequeña (1%). Al salir de la
+ * ventana compiten por entrar a la zona principal contra la víctima de esta:
+ * gana la de mayor frecuencia estimada (contadores de 4 bits en un
+ * count-min sketch que se divide a la mitad periódicamente para olvidar lo
+ * viejo). La zona principal es un LRU segmentado: una línea de prueba y una
+ * protegida (80%) para las entradas que se volvieron a usar.
+ *
+ * Las lecturas no bloquean: el dato sale de un ConcurrentHashMap y el registro
+ * del acceso en la política se hace solo si el lock está libre (si no, se
+ * pierde, igual que los buffers de lectura de Caffeine).
+ */
+public final class BoundedCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        int queue;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Lista doblemente enlazada en orden de acceso (cabeza = menos reciente)
+     */
+    private static final class AccessOrder<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+        int size;
+
+        void addLast(Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) head = node; else tail.next = node;
+            tail = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) head = node.next; else node.prev.next = node.next;
+            if (node.next == null) tail = node.prev; else node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (tail == node) return;
+            remove(node);
+            addLast(node);
+        }
+    }
+
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedQueue = new AccessOrder<>();
+    private final FrequencySketch sketch;
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+
+    // Cambia con cada invalidación; evita guardar un valor cargado antes de invalidar
+    private final AtomicLong writeEpoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize Cantidad máxima de entradas
+     */
+    public BoundedCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("El tamaño máximo debe ser positivo");
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * @return El valor guardado, o null si no está
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            recordMiss(key);
+            return null;
+        }
+        hits.increment();
+        recordHit(node);
+        return node.value;
+    }
+
+    /**
+     * Lectura a través de la caché: si la llave no está se carga con el loader y se guarda.
+     * Los valores null no se guardan.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) return value;
+        long epoch = writeEpoch.get();
+        value = loader.apply(key);
+        if (value != null) {
+            putIfCurrent(key, value, epoch);
+        }
+        return value;
+    }
+
+    /**
+     * Época actual de escrituras, para usar con putIfCurrent al cargar por fuera de get
+     */
+    public long epoch() {
+        return writeEpoch.get();
+    }
+
+    /**
+     * Guarda un valor cargado solo si no hubo invalidaciones desde que empezó la carga
+     */
+    public void putIfCurrent(K key, V value, long epoch) {
+        lock.lock();
+        try {
+            if (writeEpoch.get() == epoch) {
+                putLocked(key, value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Guarda o reemplaza un valor (por ejemplo, después de actualizarlo en la base de datos)
+     */
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            writeEpoch.incrementAndGet();
+            putLocked(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            writeEpoch.incrementAndGet();
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                queueOf(node).remove(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            writeEpoch.incrementAndGet();
+            for (Node<K, V> node : data.values()) {
+                queueOf(node).remove(node);
+            }
+            data.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    // ============ POLÍTICA (siempre con el lock tomado) ============
+
+    private void recordHit(Node<K, V> node) {
+        if (!lock.tryLock()) return;
+        try {
+            sketch.increment(node.key.hashCode());
+            if (data.get(node.key) != node) return; // Se invalidó mientras tanto
+            switch (node.queue) {
+                case WINDOW -> window.moveToLast(node);
+                case PROBATION -> {
+                    probation.remove(node);
+                    node.queue = PROTECTED;
+                    protectedQueue.addLast(node);
+                    while (protectedQueue.size > protectedMaximum) {
+                        Node<K, V> demoted = protectedQueue.head;
+                        protectedQueue.remove(demoted);
+                        demoted.queue = PROBATION;
+                        probation.addLast(demoted);
+                    }
+                }
+                default -> protectedQueue.moveToLast(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordMiss(K key) {
+        if (!lock.tryLock()) return;
+        try {
+            sketch.increment(key.hashCode());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void putLocked(K key, V value) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            node.value = value;
+            return;
+        }
+        node = new Node<>(key, value);
+        node.queue = WINDOW;
+        data.put(key, node);
+        window.addLast(node);
+        evict();
+    }
+
+    private void evict() {
+        // Lo que sale de la ventana pasa a prueba como candidato
+        while (window.size > windowMaximum) {
+            Node<K, V> candidate = window.head;
+            window.remove(candidate);
+            candidate.queue = PROBATION;
+            probation.addLast(candidate);
+        }
+        while (data.size() > maximumSize) {
+            Node<K, V> victim = probation.head;
+            Node<K, V> candidate = probation.tail;
+            if (victim == null) {
+                victim = protectedQueue.head != null ? protectedQueue.head : window.head;
+            } else if (candidate != victim
+                    && sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                // El candidato no es más popular que la víctima: sale el candidato
+                victim = candidate;
+            }
+            queueOf(victim).remove(victim);
+            data.remove(victim.key);
+            evictions.increment();
+        }
+    }
+
+    private AccessOrder<K, V> queueOf(Node<K, V> node) {
+        return switch (node.queue) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            default -> protectedQueue;
+        };
+    }
+
+    /**
+     * Count-min sketch con 4 contadores de 4 bits por llave.
+     * Cada long guarda 16 contadores. Cuando se registran 10 accesos por
+     * entrada de la caché, todos los contadores se dividen a la mitad.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int length = Integer.highestOneBit(Math.max(8, maximumSize - 1)) << 1;
+            table = new long[length];
+            tableMask = length - 1;
+            sampleSize = 10 * maximumSize;
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = counterOffset(hash, i);
+                frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int offset = counterOffset(hash, i);
+                if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & tableMask;
+        }
+
+        private static int counterOffset(int hash, int i) {
+            // Cada función usa un contador distinto (de 16) dentro del long
+            return (((hash >>> (i << 3)) & 3) << 2) + (i << 4) & 63;
+        }
+    }
+}
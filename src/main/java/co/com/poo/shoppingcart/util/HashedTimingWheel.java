@@ -0,0 +1,159 @@
+package co.com.poo.shoppingcart.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de temporizadores (hashed timing wheel).
+ *
+ * El tiempo se divide en ticks y cada tick cae en una casilla de la rueda.
+ * Programar o cancelar un temporizador es O(1) (se agrega o se quita de la
+ * lista doblemente enlazada de su casilla), sin importar cuántos haya.
+ * Los temporizadores que vencen más allá de una vuelta completa llevan un
+ * contador de vueltas pendientes.
+ *
+ * El avance lo hace quien la usa, llamando a advance() periódicamente.
+ * Todos los métodos son thread-safe.
+ */
+public final class HashedTimingWheel<K> {
+
+    /**
+     * Temporizador programado; sirve para cancelarlo
+     */
+    public static final class Timeout<K> {
+        private final K key;
+        private long rounds;
+        private int bucket = -1;
+        private Timeout<K> prev;
+        private Timeout<K> next;
+
+        private Timeout(K key) {
+            this.key = key;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        /**
+         * @return true mientras el temporizador siga en la rueda
+         */
+        public boolean isPending() {
+            return bucket >= 0;
+        }
+    }
+
+    private final Timeout<K>[] buckets;
+    private final int mask;
+    private final long tickNanos;
+    private final long startNanos;
+    private long tick; // próximo tick por procesar
+    private int size;
+
+    /**
+     * @param wheelSize Casillas de la rueda (se redondea a potencia de 2)
+     * @param tickNanos Duración de un tick en nanosegundos
+     */
+    public HashedTimingWheel(int wheelSize, long tickNanos) {
+        int n = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.buckets = newBuckets(n);
+        this.mask = n - 1;
+        this.tickNanos = tickNanos;
+        this.startNanos = System.nanoTime();
+    }
+
+    // Las casillas solo guardan Timeout<K>, así que la conversión es segura
+    @SuppressWarnings("unchecked")
+    private static <K> Timeout<K>[] newBuckets(int n) {
+        return (Timeout<K>[]) new Timeout<?>[n];
+    }
+
+    /**
+     * Programa un temporizador que vence dentro del tiempo indicado
+     * @param key Dato que se entrega al vencer
+     * @param delayNanos Tiempo hasta el vencimiento
+     * @return El temporizador (para cancelarlo)
+     */
+    public synchronized Timeout<K> schedule(K key, long delayNanos) {
+        Timeout<K> timeout = new Timeout<>(key);
+        long target = (System.nanoTime() - startNanos + delayNanos) / tickNanos;
+        if (target < tick) {
+            target = tick;
+        }
+        timeout.rounds = (target - tick) / buckets.length;
+        link(timeout, (int) (target & mask));
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Cancela el temporizador si aún no ha vencido
+     * @return true si se canceló
+     */
+    public synchronized boolean cancel(Timeout<K> timeout) {
+        if (!timeout.isPending()) return false;
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Procesa los ticks transcurridos hasta ahora y entrega los temporizadores vencidos
+     * @param expired Recibe las llaves vencidas (se llama fuera del lock de la rueda)
+     * @return Cantidad de temporizadores vencidos
+     */
+    public int advance(Consumer<K> expired) {
+        List<K> due = collectExpired();
+        due.forEach(expired);
+        return due.size();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized List<K> collectExpired() {
+        List<K> due = new ArrayList<>();
+        long now = (System.nanoTime() - startNanos) / tickNanos;
+        while (tick <= now) {
+            Timeout<K> t = buckets[(int) (tick & mask)];
+            while (t != null) {
+                Timeout<K> next = t.next;
+                if (t.rounds <= 0) {
+                    unlink(t);
+                    size--;
+                    due.add(t.key);
+                } else {
+                    t.rounds--;
+                }
+                t = next;
+            }
+            tick++;
+        }
+        return due;
+    }
+
+    private void link(Timeout<K> timeout, int bucket) {
+        Timeout<K> head = buckets[bucket];
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) head.prev = timeout;
+        buckets[bucket] = timeout;
+    }
+
+    private void unlink(Timeout<K> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+}
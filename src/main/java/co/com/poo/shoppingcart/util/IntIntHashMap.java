@@ -0,0 +1,154 @@
+package co.com.poo.shoppingcart.util;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de int a int con direccionamiento abierto (sondeo lineal).
+ *
+ * Evita el boxing de Integer y no crea objetos por entrada, por eso sirve
+ * para índices calientes (por ejemplo, ID de producto -> posición).
+ * Los valores deben ser mayores o iguales a 0; -1 indica "no existe".
+ * No es thread-safe.
+ */
+public final class IntIntHashMap {
+
+    public static final int NO_VALUE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public IntIntHashMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize Cantidad de entradas esperadas (evita redimensionar)
+     */
+    public IntIntHashMap(int expectedSize) {
+        allocate(tableSizeFor(Math.max(4, expectedSize * 2)));
+    }
+
+    /**
+     * @return El valor asociado a la llave, o NO_VALUE si no existe
+     */
+    public int get(int key) {
+        int i = hash(key) & mask;
+        while (values[i] != NO_VALUE) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Asocia el valor a la llave (reemplaza el anterior si existía)
+     * @return El valor anterior, o NO_VALUE si la llave no existía
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("El valor no puede ser negativo: " + value);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int i = hash(key) & mask;
+        while (values[i] != NO_VALUE) {
+            if (keys[i] == key) {
+                int old = values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        return NO_VALUE;
+    }
+
+    /**
+     * Elimina la llave. Usa borrado por desplazamiento, así no quedan lápidas.
+     * @return El valor que tenía la llave, o NO_VALUE si no existía
+     */
+    public int remove(int key) {
+        int i = hash(key) & mask;
+        while (values[i] != NO_VALUE) {
+            if (keys[i] == key) {
+                int old = values[i];
+                shiftBack(i);
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+
+    private void shiftBack(int hole) {
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == NO_VALUE) break;
+            int home = hash(keys[j]) & mask;
+            // Si la posición ideal de j está entre el hueco y j (circularmente), se queda donde está
+            boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (stays) continue;
+            keys[hole] = keys[j];
+            values[hole] = values[j];
+            hole = j;
+        }
+        values[hole] = NO_VALUE;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                int j = hash(oldKeys[i]) & mask;
+                while (values[j] != NO_VALUE) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        mask = capacity - 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int n) {
+        int highest = Integer.highestOneBit(n);
+        return highest == n ? n : highest << 1;
+    }
+}
@@ -0,0 +1,94 @@
+package co.com.poo.shoppingcart.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Índice en memoria que se construye la primera vez que se usa y luego se
+ * mantiene con los cambios del catálogo.
+ *
+ * La construcción corre sin el lock de los cambios: los que llegan mientras
+ * tanto se guardan y se aplican al índice nuevo antes de publicarlo. Un
+ * invalidate() durante la construcción la descarta y se vuelve a construir.
+ * Los cambios que llegan sin índice y sin construcción en curso se ignoran:
+ * la próxima construcción ya los lee.
+ *
+ * El índice debe soportar por sí mismo lecturas concurrentes con los cambios.
+ */
+public final class LazyIndex<T> {
+
+    private volatile T index;
+    // Cambios recibidos durante una construcción (null si no se está construyendo)
+    private List<Consumer<T>> pending;
+    // Aumenta con cada invalidate(): una construcción que empezó antes se descarta
+    private long generation;
+    private final Object buildLock = new Object();
+
+    /**
+     * Construye el índice si aún no existe. Si la construcción falla, la
+     * excepción sale hacia quien llamó y los cambios guardados se descartan.
+     * @param builder Construye un índice nuevo con el catálogo actual
+     */
+    public void ensureLoaded(Supplier<T> builder) {
+        if (index != null) return;
+        synchronized (buildLock) {
+            while (index == null) {
+                long started = startBuild();
+                T built = null;
+                try {
+                    built = builder.get();
+                } finally {
+                    finishBuild(built, started);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return El índice publicado, o null si no está construido
+     */
+    public T get() {
+        return index;
+    }
+
+    /**
+     * Aplica un cambio al índice publicado, o lo guarda si hay una
+     * construcción en curso
+     */
+    public synchronized void apply(Consumer<T> change) {
+        if (index != null) {
+            change.accept(index);
+        } else if (pending != null) {
+            pending.add(change);
+        }
+    }
+
+    /**
+     * Descarta el índice; se vuelve a construir en el próximo ensureLoaded
+     */
+    public synchronized void invalidate() {
+        index = null;
+        generation++;
+    }
+
+    private synchronized long startBuild() {
+        pending = new ArrayList<>();
+        return generation;
+    }
+
+    /**
+     * Publica lo construido con los cambios pendientes, salvo que se haya
+     * invalidado durante la construcción (o que haya fallado: built == null)
+     */
+    private synchronized void finishBuild(T built, long started) {
+        if (built != null && generation == started) {
+            for (Consumer<T> change : pending) {
+                change.accept(built);
+            }
+            index = built;
+        }
+        pending = null;
+    }
+}
@@ -0,0 +1,60 @@
+package co.com.poo.shoppingcart.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Convierte texto en español en términos para búsqueda:
+ * minúsculas, sin tildes ("Audífonos" -> "audifonos"), separado por todo lo
+ * que no sea letra o número, sin palabras vacías (de, la, con...) y con un
+ * recorte simple de plurales ("monitores" -> "monitor", "teclados" -> "teclado").
+ *
+ * Se usa igual para indexar y para consultar, así ambos lados coinciden.
+ */
+public final class SpanishAnalyzer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "su", "sus", "un", "una", "uno", "unos", "unas", "y");
+
+    private SpanishAnalyzer() {
+    }
+
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) return terms;
+
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= folded.length(); i++) {
+            char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue; // tildes y diéresis
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                String term = stem(token.toString());
+                if (!STOP_WORDS.contains(term)) {
+                    terms.add(term);
+                }
+                token.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Quita el plural: "-es" después de r, l, n o d; si no, una "-s" final
+     */
+    private static String stem(String term) {
+        int n = term.length();
+        if (n > 4 && term.endsWith("es") && "rlnd".indexOf(term.charAt(n - 3)) >= 0) {
+            return term.substring(0, n - 2);
+        }
+        if (n > 3 && term.charAt(n - 1) == 's') {
+            return term.substring(0, n - 1);
+        }
+        return term;
+    }
+}
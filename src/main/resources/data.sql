@@ -3,3 +3,6 @@ INSERT INTO products (name, description, price, stock) VALUES
 ('Teclado mecánico', 'Teclado RGB con switches rojos', 150000, 10),
 ('Monitor 24"', 'Monitor Full HD con panel IPS', 700000, 5),
 ('Audífonos gamer', 'Audífonos con micrófono incorporado', 90000, 15);
+
+-- Llave de categoría normalizada (la calcula la entidad al guardar; aquí para los datos iniciales)
+UPDATE products SET category_key = LOWER(TRIM(description)) WHERE category_key IS NULL;
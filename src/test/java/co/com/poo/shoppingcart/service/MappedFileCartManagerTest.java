@@ -0,0 +1,146 @@
+package co.com.poo.shoppingcart.service;
+
+import co.com.poo.shoppingcart.model.Cart;
+import co.com.poo.shoppingcart.model.CartItem;
+import co.com.poo.shoppingcart.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileCartManagerTest {
+
+    // Distribución del archivo (ver MappedFileCartManager)
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 2048;
+    private static final int COPIES = 64;
+    private static final int COPY_SIZE = 976;
+    private static final int SEQ = 8;
+    private static final int ITEMS = 24;
+
+    private final ProductRepository products = new ProductRepository() {
+        private final Map<Integer, Product> byId = Map.of(
+                1, new Product(1, "Mouse", "Periféricos", 45_000_00L, 20),
+                2, new Product(2, "Teclado", "Periféricos", 150_000_00L, 10));
+
+        @Override
+        public List<Product> loadProducts() {
+            return List.copyOf(byId.values());
+        }
+
+        @Override
+        public Product getProductById(Integer id) {
+            return byId.get(id);
+        }
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cartSurvivesReopen() throws IOException {
+        Path file = dir.resolve("carts.bin");
+        try (MappedFileCartManager manager = new MappedFileCartManager(file, 64, products)) {
+            manager.saveCart("ana", cart(1, 2));
+        }
+        try (MappedFileCartManager manager = new MappedFileCartManager(file, 64, products)) {
+            Cart cart = manager.getCart("ana");
+            assertEquals(2, cart.findItem(1).getQuantity());
+            assertEquals(0, manager.getTornRecords());
+            assertEquals(1, manager.size());
+        }
+    }
+
+    @Test
+    void tornWriteFallsBackToPreviousVersion() throws IOException {
+        Path file = dir.resolve("carts.bin");
+        try (MappedFileCartManager manager = new MappedFileCartManager(file, 64, products)) {
+            manager.saveCart("ana", cart(1, 2));
+            manager.saveCart("ana", cart(1, 5));
+        }
+        // Se simula un corte a mitad de la última escritura: su copia queda con basura
+        corruptNewestCopy(file);
+
+        try (MappedFileCartManager manager = new MappedFileCartManager(file, 64, products)) {
+            assertEquals(1, manager.getTornRecords());
+            Cart cart = manager.getCart("ana");
+            assertEquals(2, cart.findItem(1).getQuantity());
+
+            // Después de recuperar se puede seguir escribiendo normalmente
+            manager.saveCart("ana", cart(2, 3));
+            assertEquals(3, manager.getCart("ana").findItem(2).getQuantity());
+        }
+    }
+
+    @Test
+    void tornFirstWriteLeavesAnEmptyCart() throws IOException {
+        Path file = dir.resolve("carts.bin");
+        try (MappedFileCartManager manager = new MappedFileCartManager(file, 64, products)) {
+            manager.saveCart("ana", cart(1, 2));
+        }
+        corruptNewestCopy(file);
+
+        try (MappedFileCartManager manager = new MappedFileCartManager(file, 64, products)) {
+            assertEquals(1, manager.getTornRecords());
+            assertTrue(manager.getCart("ana").isEmpty());
+        }
+    }
+
+    @Test
+    void deletedRecordsAreReused() throws IOException {
+        Path file = dir.resolve("carts.bin");
+        try (MappedFileCartManager manager = new MappedFileCartManager(file, 16, products)) {
+            manager.saveCart("fijo", cart(2, 1));
+            // Muchos más clientes que registros: solo funciona si los borrados se reutilizan
+            for (int i = 0; i < 1000; i++) {
+                String customer = "cliente-" + i;
+                manager.saveCart(customer, cart(1, i % 7 + 1));
+                assertEquals(i % 7 + 1, manager.getCart(customer).findItem(1).getQuantity());
+                manager.deleteCart(customer);
+                assertTrue(manager.getCart(customer).isEmpty());
+            }
+            assertEquals(1, manager.size());
+            assertEquals(1, manager.getCart("fijo").findItem(2).getQuantity());
+        }
+    }
+
+    private static Cart cart(int productId, int quantity) {
+        Cart cart = new Cart();
+        Product product = new Product(productId, "P" + productId, "C", 1_000L);
+        cart.addItem(new CartItem(product, quantity));
+        return cart;
+    }
+
+    /**
+     * Cambia un byte de las líneas de la copia más reciente del único registro usado
+     */
+    private static void corruptNewestCopy(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long records = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            for (long slot = 0; slot < records; slot++) {
+                long offset = HEADER_SIZE + slot * RECORD_SIZE;
+                record.clear();
+                channel.read(record, offset);
+                if (record.getInt(0) != 1) continue;
+                long seq0 = record.getLong(COPIES + SEQ);
+                long seq1 = record.getLong(COPIES + COPY_SIZE + SEQ);
+                int newest = seq1 > seq0 ? 1 : 0;
+                long itemOffset = offset + COPIES + (long) newest * COPY_SIZE + ITEMS + 4;
+                ByteBuffer garbage = ByteBuffer.allocate(1).put(0, (byte) 0x7f);
+                channel.write(garbage, itemOffset);
+                return;
+            }
+            throw new AssertionError("No hay registros usados");
+        }
+    }
+}
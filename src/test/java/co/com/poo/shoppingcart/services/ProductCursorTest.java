@@ -0,0 +1,70 @@
+package co.com.poo.shoppingcart.services;
+
+import co.com.poo.shoppingcart.exception.InvalidPageRequestException;
+import co.com.poo.shoppingcart.model.ProductSort;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCursorTest {
+
+    @Test
+    void idCursorRoundTrips() {
+        String token = new ProductCursor(ProductSort.ID, 42, null, null).encode();
+        ProductCursor cursor = ProductCursor.decode(token, ProductSort.ID);
+        assertEquals(ProductSort.ID, cursor.getSort());
+        assertEquals(42, cursor.getLastId());
+        assertNull(cursor.getLastPrice());
+        assertNull(cursor.getLastName());
+    }
+
+    @Test
+    void priceCursorKeepsScale() {
+        String token = new ProductCursor(ProductSort.PRICE, 7, new BigDecimal("1500000.50"), null).encode();
+        ProductCursor cursor = ProductCursor.decode(token, ProductSort.PRICE);
+        assertEquals(7, cursor.getLastId());
+        assertEquals(new BigDecimal("1500000.50"), cursor.getLastPrice());
+    }
+
+    @Test
+    void nameCursorKeepsSeparatorsAndAccents() {
+        // El nombre puede traer el separador del token y caracteres no ASCII
+        String name = "Monitor 24\" | Ñandú/áé+?";
+        String token = new ProductCursor(ProductSort.NAME, Long.MAX_VALUE, null, name).encode();
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), "el token debe ir tal cual en una URL");
+        assertFalse(token.endsWith("="));
+
+        ProductCursor cursor = ProductCursor.decode(token, ProductSort.NAME);
+        assertEquals(Long.MAX_VALUE, cursor.getLastId());
+        assertEquals(name, cursor.getLastName());
+    }
+
+    @Test
+    void cursorFromAnotherSortIsRejected() {
+        String token = new ProductCursor(ProductSort.PRICE, 7, new BigDecimal("10.00"), null).encode();
+        InvalidPageRequestException e = assertThrows(InvalidPageRequestException.class,
+                () -> ProductCursor.decode(token, ProductSort.NAME));
+        assertEquals("El cursor no corresponde al orden name", e.getMessage());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertThrows(InvalidPageRequestException.class, () -> ProductCursor.decode("no es base64!", ProductSort.ID));
+        assertThrows(InvalidPageRequestException.class, () -> ProductCursor.decode(encodeRaw("ID|abc|"), ProductSort.ID));
+        assertThrows(InvalidPageRequestException.class, () -> ProductCursor.decode(encodeRaw("PRICE|1|caro"), ProductSort.PRICE));
+        assertThrows(InvalidPageRequestException.class, () -> ProductCursor.decode(encodeRaw("XYZ|1|"), ProductSort.ID));
+        assertThrows(InvalidPageRequestException.class, () -> ProductCursor.decode(encodeRaw("ID|1"), ProductSort.ID));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
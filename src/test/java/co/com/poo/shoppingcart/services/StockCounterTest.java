@@ -0,0 +1,131 @@
+package co.com.poo.shoppingcart.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockCounterTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    @Timeout(60)
+    void neverOversellsUnderConcurrentResizeAndRebase() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            int stock = 5_000;
+            StockCounter counter = new StockCounter(stock, 8);
+            AtomicInteger sold = new AtomicInteger();
+            AtomicBoolean done = new AtomicBoolean();
+            CountDownLatch start = new CountDownLatch(1);
+
+            List<Thread> buyers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int quantity = 1 + t % 3;
+                buyers.add(new Thread(() -> {
+                    await(start);
+                    // Se compra hasta que varios intentos seguidos fallan
+                    int failures = 0;
+                    int attempts = 0;
+                    while (failures < 50) {
+                        if (counter.reserve(quantity)) {
+                            failures = 0;
+                            if (++attempts % 2 == 0) {
+                                counter.sell(quantity);
+                                sold.addAndGet(quantity);
+                            } else {
+                                // Carrito abandonado: la reserva vuelve al disponible
+                                counter.unreserve(quantity);
+                            }
+                        } else {
+                            failures++;
+                        }
+                    }
+                }));
+            }
+            // Mientras tanto se cambian las franjas y se vuelve a cargar el stock
+            Thread maintenance = new Thread(() -> {
+                await(start);
+                int stripes = 1;
+                while (!done.get()) {
+                    counter.resize(stripes);
+                    stripes = stripes == 16 ? 1 : stripes * 2;
+                    long totals = counter.totals();
+                    int stored = StockCounter.availableOf(totals) + StockCounter.reservedOf(totals);
+                    counter.rebaseIf(totals, stored);
+                    counter.rebalance();
+                }
+            });
+
+            buyers.forEach(Thread::start);
+            maintenance.start();
+            start.countDown();
+            for (Thread buyer : buyers) buyer.join();
+            done.set(true);
+            maintenance.join();
+
+            long totals = counter.totals();
+            assertTrue(sold.get() <= stock, "se vendieron " + sold.get() + " de " + stock);
+            assertEquals(0, StockCounter.reservedOf(totals));
+            assertEquals(stock - sold.get(), StockCounter.availableOf(totals));
+            assertTrue(StockCounter.availableOf(totals) >= 0);
+        }
+    }
+
+    @Test
+    void reserveFailsWhenStockIsSpreadAcrossStripes() {
+        StockCounter counter = new StockCounter(10, 4);
+        // Ninguna franja tiene 7 por sí sola, pero el total sí alcanza
+        assertTrue(counter.reserve(7));
+        assertFalse(counter.reserve(4));
+        assertTrue(counter.reserve(3));
+        assertFalse(counter.reserve(1));
+        assertEquals(StockCounter.state(0, 10), counter.totals());
+    }
+
+    @Test
+    void negativeAdjustBlocksReservesUntilStockReturns() {
+        StockCounter counter = new StockCounter(4, 4);
+        assertTrue(counter.reserve(3));
+        // Alguien bajó el stock por debajo de lo reservado
+        counter.adjust(-3);
+        assertEquals(-2, StockCounter.availableOf(counter.totals()));
+        assertFalse(counter.reserve(1));
+
+        // Lo que vuelve primero cubre el faltante
+        counter.unreserve(3);
+        assertEquals(StockCounter.state(1, 0), counter.totals());
+        assertTrue(counter.reserve(1));
+        assertFalse(counter.reserve(1));
+    }
+
+    @Test
+    void rebaseIsSkippedWhenTotalsChanged() {
+        StockCounter counter = new StockCounter(10, 4);
+        long before = counter.totals();
+        assertTrue(counter.reserve(2));
+
+        // Una venta entre leer los totales y el stock: no se toca nada
+        assertFalse(counter.rebaseIf(before, 50));
+        assertEquals(StockCounter.state(8, 2), counter.totals());
+
+        assertTrue(counter.rebaseIf(counter.totals(), 50));
+        assertEquals(StockCounter.state(48, 2), counter.totals());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package co.com.poo.shoppingcart.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedCacheTest {
+
+    @Test
+    void sizeNeverExceedsMaximum() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100);
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, "p" + i);
+            assertTrue(cache.size() <= 100);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.evictionCount());
+    }
+
+    @Test
+    void frequentKeyIsAdmittedOverColdVictim() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "p" + i);
+        }
+        // Se pidió varias veces sin estar: al salir de la ventana gana contra la víctima
+        for (int i = 0; i < 5; i++) {
+            assertNull(cache.getIfPresent(500));
+        }
+        cache.put(500, "popular");
+        cache.put(501, "empuja");
+        cache.put(502, "empuja");
+
+        assertEquals("popular", cache.getIfPresent(500));
+        // La primera del llenado (cabeza de prueba) fue la que salió
+        assertNull(cache.getIfPresent(0));
+    }
+
+    @Test
+    void coldCandidateIsRejected() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "p" + i);
+        }
+        cache.put(500, "nueva");
+        cache.put(501, "empuja");
+
+        // Sin historial no es más popular que la víctima: sale ella, no la víctima
+        assertNull(cache.getIfPresent(500));
+        assertNotNull(cache.getIfPresent(0));
+    }
+
+    @Test
+    void reusedEntriesSurviveScan() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "p" + i);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(cache.getIfPresent(i));
+            }
+        }
+        // Un recorrido de llaves de un solo uso no desplaza a las protegidas
+        for (int i = 1_000; i < 5_000; i++) {
+            cache.put(i, "p" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals("p" + i, cache.getIfPresent(i));
+        }
+    }
+
+    @Test
+    void loadStartedBeforeInvalidationIsNotStored() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10);
+        long epoch = cache.epoch();
+        cache.invalidate(1);
+        cache.putIfCurrent(1, "viejo", epoch);
+        assertNull(cache.getIfPresent(1));
+
+        cache.putIfCurrent(1, "actual", cache.epoch());
+        assertEquals("actual", cache.getIfPresent(1));
+    }
+
+    @Test
+    void getLoadsOnceAndCountsHits() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("p1", cache.get(1, key -> {
+                loads.incrementAndGet();
+                return "p" + key;
+            }));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        // Los null no se guardan
+        assertNull(cache.get(2, key -> null));
+        assertNull(cache.getIfPresent(2));
+    }
+}
@@ -0,0 +1,72 @@
+package co.com.poo.shoppingcart.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void timeoutsExpireInDeadlineOrder() throws InterruptedException {
+        // 4 casillas de 10 ms: una vuelta son 40 ms, así que "c" y "d" necesitan varias
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(4, TICK);
+        long start = System.nanoTime();
+        wheel.schedule("c", 12 * TICK);
+        wheel.schedule("a", 2 * TICK);
+        wheel.schedule("d", 17 * TICK);
+        wheel.schedule("b", 6 * TICK);
+
+        List<String> order = new ArrayList<>();
+        List<Long> elapsed = new ArrayList<>();
+        while (order.size() < 4 && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+            wheel.advance(key -> {
+                order.add(key);
+                elapsed.add(System.nanoTime() - start);
+            });
+            Thread.sleep(2);
+        }
+
+        assertEquals(List.of("a", "b", "c", "d"), order);
+        // Como mucho un tick antes del plazo (el plazo se redondea al tick)
+        long[] delays = {2, 6, 12, 17};
+        for (int i = 0; i < delays.length; i++) {
+            assertTrue(elapsed.get(i) >= (delays[i] - 1) * TICK, "venció antes: " + order.get(i));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimeoutNeverExpires() throws InterruptedException {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(4, TICK);
+        HashedTimingWheel.Timeout<String> cancelled = wheel.schedule("cancelado", TICK);
+        wheel.schedule("vigente", TICK);
+        assertEquals(2, wheel.size());
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(cancelled.isPending());
+        assertFalse(wheel.cancel(cancelled));
+
+        Thread.sleep(3 * TICK / 1_000_000);
+        List<String> expired = new ArrayList<>();
+        assertEquals(1, wheel.advance(expired::add));
+        assertEquals(List.of("vigente"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void nothingExpiresBeforeItsRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(4, TICK);
+        // Cae en la casilla actual pero dentro de 25 vueltas
+        wheel.schedule("lejano", 100 * TICK);
+        assertEquals(0, wheel.advance(key -> { }));
+        assertEquals(1, wheel.size());
+    }
+}
@@ -0,0 +1,69 @@
+package co.com.poo.shoppingcart.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LazyIndexTest {
+
+    @Test
+    void writesDuringBuildAreApplied() {
+        LazyIndex<Map<Integer, String>> index = new LazyIndex<>();
+        index.ensureLoaded(() -> {
+            // Llegan mientras se lee el catálogo (la lectura no tiene el lock)
+            index.apply(map -> map.put(3, "Monitor"));
+            index.apply(map -> map.put(1, "Mouse nuevo"));
+            index.apply(map -> map.remove(2));
+            return new TreeMap<>(Map.of(1, "Mouse", 2, "Teclado"));
+        });
+
+        assertEquals(Map.of(1, "Mouse nuevo", 3, "Monitor"), index.get());
+    }
+
+    @Test
+    void buildInvalidatedMidwayIsDiscarded() {
+        LazyIndex<Map<Integer, String>> index = new LazyIndex<>();
+        AtomicInteger builds = new AtomicInteger();
+        index.ensureLoaded(() -> {
+            if (builds.incrementAndGet() == 1) {
+                // Una importación invalida mientras se lee: lo leído ya es viejo
+                index.invalidate();
+                return new TreeMap<>(Map.of(1, "Viejo"));
+            }
+            return new TreeMap<>(Map.of(1, "Nuevo"));
+        });
+
+        assertEquals(2, builds.get());
+        assertEquals("Nuevo", index.get().get(1));
+    }
+
+    @Test
+    void writesBeforeBuildAreLeftToTheBuild() {
+        LazyIndex<Map<Integer, String>> index = new LazyIndex<>();
+        // Sin construcción en curso no se guarda nada: la lectura posterior ya lo incluye
+        index.apply(map -> map.put(9, "Suelto"));
+        index.ensureLoaded(() -> new TreeMap<>(Map.of(1, "Mouse")));
+
+        assertEquals(Map.of(1, "Mouse"), index.get());
+    }
+
+    @Test
+    void failedBuildDropsPendingWrites() {
+        LazyIndex<Map<Integer, String>> index = new LazyIndex<>();
+        assertThrows(IllegalStateException.class, () -> index.ensureLoaded(() -> {
+            index.apply(map -> map.put(9, "Perdido"));
+            throw new IllegalStateException("la base de datos no responde");
+        }));
+        assertNull(index.get());
+
+        // El reintento lee el catálogo de nuevo, sin los cambios de la construcción fallida
+        index.ensureLoaded(() -> new TreeMap<>(Map.of(1, "Mouse")));
+        assertEquals(Map.of(1, "Mouse"), index.get());
+    }
+}